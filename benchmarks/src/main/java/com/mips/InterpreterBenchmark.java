@@ -0,0 +1,94 @@
+package com.mips;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// InterpreterBenchmark measures Interpreter throughput on the canonical workloads.
+// Every benchmark declares the instructions its workload retires, so the score is
+// simulated MIPS instructions per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpreterBenchmark {
+    // optimized is the switch engine running the program rewritten by the Optimizer
+    @Param({ "switch", "optimized", "tiered", "visitor" })
+    String engine;
+
+    private Workload counting;
+    private Workload arithmetic;
+    private Workload branches;
+    private Workload printing;
+
+    @Setup
+    public void setup() {
+        counting = new Workload(Workloads.COUNTING);
+        arithmetic = new Workload(Workloads.ARITHMETIC);
+        branches = new Workload(Workloads.BRANCHES);
+        printing = new Workload(Workloads.PRINTING);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.COUNTING_RETIRED)
+    public void counting() {
+        counting.run(engine);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.ARITHMETIC_RETIRED)
+    public void arithmetic() {
+        arithmetic.run(engine);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.BRANCHES_RETIRED)
+    public void branches() {
+        branches.run(engine);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Workloads.PRINTING_RETIRED)
+    public void printing() {
+        printing.run(engine);
+    }
+
+    // Workload is a program in its parsed, decoded and optimized forms.
+    private static class Workload {
+        final List<Inst> instructions;
+        final Program program;
+        final Program optimized;
+
+        Workload(String source) {
+            instructions = new Parser(new Scanner(source).scanTokens()).parse();
+            program = new Decoder().decode(instructions);
+            optimized = Optimizer.optimize(program, true);
+        }
+
+        void run(String engine) {
+            // printed values are formatted and buffered but not written anywhere.
+            Interpreter interpreter = new Interpreter(new Output(OutputStream.nullOutputStream()));
+            if (engine.equals("visitor")) {
+                interpreter.interpret(instructions);
+            } else if (engine.equals("optimized")) {
+                interpreter.execute(optimized, false);
+            } else {
+                interpreter.execute(program, engine.equals("tiered"));
+            }
+        }
+    }
+}
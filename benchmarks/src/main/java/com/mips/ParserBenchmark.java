@@ -0,0 +1,60 @@
+package com.mips;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ParserBenchmark measures Parser.parse and the decode stage on pre-scanned tokens, and the
+// streaming front end going from source bytes to a decoded program.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({ "10000", "1000000" })
+    int lines;
+
+    private List<Token> tokens;
+    private List<Inst> instructions;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setup() {
+        String source = Workloads.generate(lines);
+        tokens = new Scanner(source).scanTokens();
+        instructions = new Parser(tokens).parse();
+        byte[] encoded = source.getBytes(StandardCharsets.US_ASCII);
+        bytes = ByteBuffer.allocateDirect(encoded.length).put(encoded).flip();
+    }
+
+    @Benchmark
+    public List<Inst> parse() {
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public Program decode() {
+        return new Decoder().decode(instructions);
+    }
+
+    @Benchmark
+    public Program stream() {
+        ProgramBuilder builder = new ProgramBuilder(lines);
+        new StreamParser(new ByteScanner(bytes.duplicate()), builder).parse();
+        return builder.build();
+    }
+}
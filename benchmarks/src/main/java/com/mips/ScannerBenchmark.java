@@ -0,0 +1,49 @@
+package com.mips;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// ScannerBenchmark measures Scanner.scanTokens and ByteScanner.scanTokens on large generated sources.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScannerBenchmark {
+    @Param({ "10000", "1000000" })
+    int lines;
+
+    private String source;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setup() {
+        source = Workloads.generate(lines);
+        byte[] encoded = source.getBytes(StandardCharsets.US_ASCII);
+        bytes = ByteBuffer.allocateDirect(encoded.length).put(encoded).flip();
+    }
+
+    @Benchmark
+    public List<Token> scanTokens() {
+        return new Scanner(source).scanTokens();
+    }
+
+    @Benchmark
+    public TokenBuffer scanBytes() {
+        return new ByteScanner(bytes.duplicate()).scanTokens();
+    }
+}
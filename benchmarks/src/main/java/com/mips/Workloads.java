@@ -0,0 +1,73 @@
+package com.mips;
+
+// Workloads holds the programs used by the benchmarks and the number of instructions they retire.
+final class Workloads {
+    // ITERATIONS is the number of loop iterations of every interpreter workload.
+    static final int ITERATIONS = 100_000;
+
+    // COUNTING is the smallest loop: increment and branch back.
+    static final String COUNTING = "addi $t1, $t0, " + ITERATIONS + " ;\n" +
+            "addi $s5, $s5, 1 ;\n" +
+            "bnq $t1, $s5, -2 ;\n";
+    static final int COUNTING_RETIRED = 1 + 2 * ITERATIONS;
+
+    // ARITHMETIC is a loop around a chain of dependent arithmetic instructions.
+    static final String ARITHMETIC = "addi $t1, $t0, " + ITERATIONS + " ;\n" +
+            "add $t2, $t2, $s5 ;\n" +
+            "sub $t3, $t2, $t4 ;\n" +
+            "mul $t4, $t3, $s5 ;\n" +
+            "and $t5, $t4, $t2 ;\n" +
+            "or $t6, $t5, $t3 ;\n" +
+            "addi $t7, $t6, 7 ;\n" +
+            "muli $t8, $t7, 3 ;\n" +
+            "subi $t9, $t8, 5 ;\n" +
+            "addi $s5, $s5, 1 ;\n" +
+            "bnq $t1, $s5, -10 ;\n";
+    static final int ARITHMETIC_RETIRED = 1 + 10 * ITERATIONS;
+
+    // BRANCHES is a loop with a branch that is taken every other iteration.
+    static final String BRANCHES = "addi $t1, $t0, " + ITERATIONS + " ;\n" +
+            "andi $t2, $s5, 1 ;\n" +
+            "beq $t2, $t0, 1 ;\n" +
+            "addi $s6, $s6, 1 ;\n" +
+            "addi $s5, $s5, 1 ;\n" +
+            "bnq $t1, $s5, -5 ;\n";
+    static final int BRANCHES_RETIRED = 1 + 4 * ITERATIONS + ITERATIONS / 2;
+
+    // PRINTING is a loop printing its counter every iteration.
+    static final String PRINTING = "addi $t1, $t0, " + ITERATIONS + " ;\n" +
+            "addi $s5, $s5, 1 ;\n" +
+            "print $s5 ;\n" +
+            "bnq $t1, $s5, -3 ;\n";
+    static final int PRINTING_RETIRED = 1 + 3 * ITERATIONS;
+
+    // LINES holds one line of every kind of instruction, generated sources cycle through them.
+    private static final String[] LINES = {
+            "addi $t1, $t0, 1000 ;",
+            "add $t2, $t2, $s5 ;",
+            "sub $t3, $t2, $t4 ;",
+            "mul $t4, $t3, $s5 ;",
+            "div $t5, $t4, $t1 ;",
+            "andi $t6, $t5, 255 ;",
+            "ori $t7, $t6, 16 ;",
+            "muli $t8, $t7, -3 ;",
+            "sll $t9, $t8, 2 ;",
+            "beq $t1, $t2, 3 ;",
+            "blt $s1, $s2, -4 ;",
+            "swap $s3, $s4, 0 ;",
+            "j 1 ;",
+            "print $s5 ;",
+    };
+
+    private Workloads() {
+    }
+
+    // generate method returns a source with the given number of lines.
+    static String generate(int lines) {
+        StringBuilder source = new StringBuilder(lines * 24);
+        for (int i = 0; i < lines; i++) {
+            source.append(LINES[i % LINES.length]).append('\n');
+        }
+        return source.toString();
+    }
+}
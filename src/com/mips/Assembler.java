@@ -0,0 +1,151 @@
+package com.mips;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Assembler encodes a program into 32-bit machine words and decodes them back. The words are a
+// MIPS-like encoding, not MIPS32: the simulator has 40 registers, so register fields are 6 bits
+// wide instead of 5, which leaves 14 bits for immediates and no shamt field.
+//
+//     R-type  op(6) rs(6) rt(6) rd(6) 0(2) funct(6)    op is SPECIAL or SPECIAL2, the operation is in funct
+//     I-type  op(6) rs(6) rt(6) immediate(14)
+//     J-type  op(6) target(26)
+//
+// Instructions that mean the same as a MIPS32 instruction keep its op and funct numbers: add, sub,
+// and, or, xor, mul (the SPECIAL2 MUL writing rd), addi, andi, ori, xori, lw, sw, beq, bne and j.
+// The others have no MIPS32 instruction doing the same: div writes rd instead of HI and LO, sll and
+// srl multiply and divide by their immediate, and subi, muli, divi, swap, print and the branches
+// comparing two registers do not exist. They use op numbers reserved in MIPS32, and div the SPECIAL2
+// funct after MUL, so no word means something else in MIPS32.
+// Branch offsets are relative to the next word like in MIPS, jump targets are word indices.
+// An immediate or offset that does not fit in 14 bits is stored as ESCAPE, its value is then the
+// next entry of the constant pool that follows the words, so every instruction is one word and
+// word indices are instruction indices.
+final class Assembler {
+    static final int ESCAPE = -(1 << 13);
+    private static final int IMMEDIATE_MASK = (1 << 14) - 1;
+    private static final int SPECIAL = 0x00;
+    private static final int SPECIAL2 = 0x1C;
+
+    // PRIMARY holds the op field of every opcode up to PRINT, FUNCT the funct field of the R-types.
+    private static final int[] PRIMARY = {
+            SPECIAL, SPECIAL, SPECIAL2, SPECIAL2, SPECIAL, SPECIAL, SPECIAL,
+            0x08, 0x18, 0x19, 0x1A, 0x0C, 0x0D, 0x0E, 0x1B, 0x1E, 0x23, 0x2B, 0x27,
+            0x04, 0x05, 0x2C, 0x2D, 0x34, 0x37, 0x02, 0x3B
+    };
+    private static final int[] FUNCT = { 0x20, 0x22, 0x02, 0x03, 0x24, 0x25, 0x26 };
+    // OPCODES maps the op field back to opcodes, FUNCTIONS and FUNCTIONS2 the funct field of
+    // SPECIAL and SPECIAL2 words, -1 for words we do not make.
+    private static final int[] OPCODES = new int[64];
+    private static final int[] FUNCTIONS = new int[64];
+    private static final int[] FUNCTIONS2 = new int[64];
+
+    static {
+        Arrays.fill(OPCODES, -1);
+        Arrays.fill(FUNCTIONS, -1);
+        Arrays.fill(FUNCTIONS2, -1);
+        for (int opcode = Opcode.ADDI; opcode <= Opcode.PRINT; opcode++) {
+            OPCODES[PRIMARY[opcode]] = opcode;
+        }
+        for (int opcode = Opcode.ADD; opcode <= Opcode.XOR; opcode++) {
+            (PRIMARY[opcode] == SPECIAL ? FUNCTIONS : FUNCTIONS2)[FUNCT[opcode]] = opcode;
+        }
+    }
+
+    private Assembler() {
+    }
+
+    // assemble method encodes a verified program as it was parsed, optimized programs are not assembled.
+    static Image assemble(Program program) {
+        int[] words = new int[program.length];
+        int[] pool = new int[16];
+        int constants = 0;
+        for (int pc = 0; pc < program.length; pc++) {
+            int i = pc * Program.WIDTH;
+            int opcode = program.code[i];
+            int a = program.code[i + 1];
+            int b = program.code[i + 2];
+            int c = program.code[i + 3];
+            if (opcode > Opcode.PRINT)
+                throw new IllegalArgumentException("Optimized programs can not be assembled.");
+            if (opcode <= Opcode.XOR) {
+                words[pc] = PRIMARY[opcode] << 26 | b << 20 | c << 14 | a << 8 | FUNCT[opcode];
+                continue;
+            }
+            if (opcode == Opcode.J) {
+                if (c >>> 26 != 0)
+                    throw new IllegalArgumentException("Jump target out of range at line " + program.lines[pc] + ".");
+                words[pc] = PRIMARY[opcode] << 26 | c;
+                continue;
+            }
+            // branches store the offset from the next word, like the source does.
+            int immediate = Opcode.isBranch(opcode) ? c - pc - 1 : c;
+            if (immediate <= ESCAPE || immediate > -ESCAPE - 1) {
+                if (constants == pool.length)
+                    pool = Arrays.copyOf(pool, constants * 2);
+                pool[constants++] = immediate;
+                immediate = ESCAPE;
+            }
+            words[pc] = PRIMARY[opcode] << 26 | b << 20 | a << 14 | (immediate & IMMEDIATE_MASK);
+        }
+        return new Image(words, Arrays.copyOf(pool, constants), Arrays.copyOf(program.lines, program.length));
+    }
+
+    // decode method decodes the words of an image into a program. The targets are not checked here,
+    // the program must be verified by ControlFlow.verify before it runs.
+    static Program decode(Image image) throws IOException {
+        int[] words = image.words;
+        int[] code = new int[words.length * Program.WIDTH];
+        int constants = 0;
+        for (int pc = 0; pc < words.length; pc++) {
+            int word = words[pc];
+            int op = word >>> 26;
+            int rs = word >>> 20 & 0x3F;
+            int rt = word >>> 14 & 0x3F;
+            int opcode;
+            int a;
+            int b;
+            int c;
+            if (op == SPECIAL || op == SPECIAL2) {
+                opcode = (op == SPECIAL ? FUNCTIONS : FUNCTIONS2)[word & 0x3F];
+                a = word >>> 8 & 0x3F;
+                b = rs;
+                c = rt;
+                if (opcode < 0 || a >= Environment.REGISTER_COUNT || c >= Environment.REGISTER_COUNT)
+                    throw invalid(pc);
+            } else if (OPCODES[op] == Opcode.J) {
+                opcode = Opcode.J;
+                a = 0;
+                b = 0;
+                c = word & 0x3FFFFFF;
+            } else {
+                opcode = OPCODES[op];
+                if (opcode < 0)
+                    throw invalid(pc);
+                a = rt;
+                b = rs;
+                // sign extend the 14-bit immediate
+                c = word << 18 >> 18;
+                if (c == ESCAPE) {
+                    if (constants == image.pool.length)
+                        throw new IOException("Truncated constant pool at word " + pc + ".");
+                    c = image.pool[constants++];
+                }
+                if (Opcode.isBranch(opcode))
+                    c += pc + 1;
+            }
+            if (a >= Environment.REGISTER_COUNT || b >= Environment.REGISTER_COUNT)
+                throw invalid(pc);
+            int i = pc * Program.WIDTH;
+            code[i] = opcode;
+            code[i + 1] = a;
+            code[i + 2] = b;
+            code[i + 3] = c;
+        }
+        return new Program(code, image.lines, words.length);
+    }
+
+    private static IOException invalid(int pc) {
+        return new IOException("Invalid instruction word at " + pc + ".");
+    }
+}
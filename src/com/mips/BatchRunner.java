@@ -0,0 +1,151 @@
+package com.mips;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// BatchRunner runs many programs on a work-stealing pool. Every program gets its own Reporter,
+// Output and Interpreter, so nothing is shared between them and an error in one program only
+// shows up in its own result.
+class BatchRunner {
+    // Status is how a program ended.
+    enum Status {
+        OK, SYNTAX_ERROR, RUNTIME_ERROR, FAILED
+    }
+
+    // Result holds the status, the printed output and the error messages of a program.
+    static class Result {
+        final Path path;
+        final Status status;
+        final byte[] output;
+        final String errors;
+        final long nanos;
+
+        Result(Path path, Status status, byte[] output, String errors, long nanos) {
+            this.path = path;
+            this.status = status;
+            this.output = output;
+            this.errors = errors;
+            this.nanos = nanos;
+        }
+
+        // write method writes the output and the errors next to each other in a directory.
+        void write(Path directory) throws IOException {
+            Files.createDirectories(directory);
+            String name = path.getFileName().toString();
+            Files.write(directory.resolve(name + ".out"), output);
+            Files.write(directory.resolve(name + ".err"), errors.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // toString method returns the status, the path, the time and the first error line.
+        @Override
+        public String toString() {
+            String line = status + " " + path + String.format(" (%.3f ms)", nanos / 1e6);
+            if (!errors.isEmpty())
+                line += ": " + errors.lines().findFirst().orElse("");
+            return line;
+        }
+    }
+
+    private final Engine engine;
+    private final int parallelism;
+    // limits bounds every program so a runaway program does not hold a worker forever, it may be null.
+    private final Limits limits;
+
+    BatchRunner(Engine engine, int parallelism, Limits limits) {
+        this.engine = engine;
+        this.parallelism = Math.max(1, parallelism);
+        this.limits = limits;
+    }
+
+    // programs method lists the programs of a batch: every .mips file under a directory, or the
+    // paths listed one per line in a manifest, relative to the manifest. Lines starting with # are skipped.
+    static List<Path> programs(Path batch) throws IOException {
+        if (Files.isDirectory(batch)) {
+            try (Stream<Path> files = Files.walk(batch)) {
+                return files.filter(file -> file.toString().endsWith(".mips") && Files.isRegularFile(file))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+        Path base = batch.toAbsolutePath().getParent();
+        List<Path> programs = new ArrayList<>();
+        for (String line : Files.readAllLines(batch)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#"))
+                programs.add(base.resolve(line));
+        }
+        return programs;
+    }
+
+    // run method runs the programs and returns their results in the same order.
+    List<Result> run(List<Path> programs) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Callable<Result>> tasks = new ArrayList<>(programs.size());
+            for (Path program : programs) {
+                tasks.add(() -> run(program));
+            }
+            List<Result> results = new ArrayList<>(programs.size());
+            for (Future<Result> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch was interrupted.", e);
+        } catch (ExecutionException e) {
+            // run catches everything a program can throw, so this is a bug in the runner.
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // run method compiles and runs one program in isolation.
+    Result run(Path path) {
+        long start = System.nanoTime();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream errors = new PrintStream(err, true, StandardCharsets.UTF_8);
+        Reporter reporter = new Reporter(errors);
+        Status status;
+        try {
+            Interpreter interpreter = new Interpreter(new Output(out), reporter);
+            interpreter.setLimits(limits);
+            if (engine == Engine.VISITOR && limits == null) {
+                String source = Files.readString(path);
+                List<Inst> instructions = new Parser(new Scanner(source, reporter).scanTokens(), reporter).parse();
+                // the visitor does not check targets either, so they are checked on the decoded program first.
+                if (!reporter.hadError && ControlFlow.verify(new Decoder().decode(instructions), reporter))
+                    interpreter.interpret(instructions);
+            } else {
+                Program program = StreamParser.parse(path, reporter);
+                if (!reporter.hadError)
+                    interpreter.execute(program, engine == Engine.TIERED);
+            }
+            status = reporter.hadError ? Status.SYNTAX_ERROR
+                    : reporter.hadRuntimeError ? Status.RUNTIME_ERROR : Status.OK;
+        } catch (IOException | RuntimeException | Error e) {
+            // a StackOverflowError or OutOfMemoryError only fails this program, the others keep running.
+            // the output may be what filled the heap, so it is dropped then.
+            if (e instanceof OutOfMemoryError)
+                out.reset();
+            errors.println(e);
+            status = Status.FAILED;
+        }
+        return new Result(path, status, out.toByteArray(), err.toString(StandardCharsets.UTF_8),
+                System.nanoTime() - start);
+    }
+}
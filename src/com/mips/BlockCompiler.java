@@ -0,0 +1,359 @@
+package com.mips;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// BlockCompiler compiles a range of a program, usually a loop, to a hidden class.
+// Registers used by the range live in local int variables while it runs, they are loaded on entry
+// and written back on every exit. Anything unusual (a division by zero, a branch out of the range)
+// leaves the compiled code and returns the pc where the interpreter has to continue, so runtime
+// errors are raised by the interpreter exactly as without compilation. Targets are valid, they
+// were checked by ControlFlow.verify. When the run has limits, every taken jump calls
+// Interpreter.taken first and leaves at the jump if the run has to stop.
+class BlockCompiler {
+    // MAX_INSTRUCTIONS keeps the generated method far below the bytecode size limits.
+    static final int MAX_INSTRUCTIONS = 1000;
+
+    private static final String NAME = "com/mips/CompiledLoop";
+    private static final String INTERPRETER = "com/mips/Interpreter";
+    private static final String DESCRIPTOR = "([ILcom/mips/Interpreter;)I";
+    // locals of the run method, the registers of the range come after them.
+    private static final int REGISTERS = 1;
+    private static final int INTERPRETER_LOCAL = 2;
+    private static final int EXIT_PC = 3;
+    private static final int FIRST_REGISTER = 4;
+
+    private final Program program;
+    private final int start;
+    private final int end;
+    private final boolean counted;
+    private final ClassWriter writer = new ClassWriter(NAME, "java/lang/Object", "com/mips/CompiledBlock");
+    private final ClassWriter.Code code = new ClassWriter.Code();
+    // locals maps a register to its local variable, -1 if the range does not use it.
+    private final int[] locals = new int[Environment.REGISTER_COUNT];
+    private final boolean[] written = new boolean[Environment.REGISTER_COUNT];
+    private int localCount = FIRST_REGISTER;
+    // exits holds the label and the pc of every exit, they are written after the body.
+    private final List<int[]> exits = new ArrayList<>();
+    // jumps holds the label, the pc, the target and the target label of every counted jump.
+    private final List<int[]> jumps = new ArrayList<>();
+
+    private BlockCompiler(Program program, int start, int end, boolean counted) {
+        this.program = program;
+        this.start = start;
+        this.end = end;
+        this.counted = counted;
+        Arrays.fill(locals, -1);
+    }
+
+    // compile method compiles the instructions from start to end, it returns null if they can not be compiled.
+    // When counted is true every taken jump is counted for the limits of the run.
+    static CompiledBlock compile(Program program, int start, int end, boolean counted) {
+        if (end < start || end - start + 1 > MAX_INSTRUCTIONS)
+            return null;
+        try {
+            byte[] bytes = new BlockCompiler(program, start, end, counted).generate();
+            if (bytes == null)
+                return null;
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (CompiledBlock) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable e) {
+            // the interpreter keeps running the range if anything goes wrong.
+            return null;
+        }
+    }
+
+    private byte[] generate() {
+        int[] instructions = program.code;
+        // find the registers used and written by the range.
+        for (int pc = start; pc <= end; pc++) {
+            int i = pc * Program.WIDTH;
+            int opcode = instructions[i];
+            int a = instructions[i + 1];
+            int b = instructions[i + 2];
+            int c = instructions[i + 3];
+            if (opcode <= Opcode.XOR) {
+                use(a, true);
+                use(b, false);
+                use(c, false);
+            } else if (opcode == Opcode.SWAP) {
+                use(a, true);
+                use(b, true);
+            } else if (opcode == Opcode.LW || opcode == Opcode.SW) {
+                // memory instructions stay in the interpreter.
+                return null;
+            } else if (opcode <= Opcode.SRL) {
+                use(a, true);
+                use(b, false);
+            } else if (Opcode.isBranch(opcode)) {
+                use(a, false);
+                use(b, false);
+            } else if (opcode == Opcode.PRINT) {
+                use(a, false);
+            } else if (opcode == Opcode.LI) {
+                use(a, true);
+            } else if (opcode == Opcode.MOVE || opcode == Opcode.SHLI || Opcode.isFused(opcode)) {
+                use(a, true);
+                use(b, false);
+            }
+        }
+
+        // load the registers into locals.
+        for (int reg = 0; reg < Environment.REGISTER_COUNT; reg++) {
+            if (locals[reg] >= 0) {
+                code.op(ClassWriter.Code.ALOAD_1);
+                code.pushInt(reg, writer);
+                code.op(ClassWriter.Code.IALOAD);
+                code.istore(locals[reg]);
+            }
+        }
+
+        int[] labels = new int[end - start + 1];
+        for (int k = 0; k < labels.length; k++) {
+            labels[k] = code.newLabel();
+        }
+        int epilogue = code.newLabel();
+
+        for (int pc = start; pc <= end; pc++) {
+            code.mark(labels[pc - start]);
+            instruction(pc, instructions, labels);
+        }
+        // falling off the end of the range.
+        exit(end + 1, epilogue);
+
+        // a counted jump goes on to its target, or leaves at the jump when the run has to stop.
+        for (int[] jump : jumps) {
+            code.mark(jump[0]);
+            code.op(ClassWriter.Code.ALOAD_2);
+            code.pushInt(jump[1], writer);
+            code.pushInt(jump[2], writer);
+            code.op(ClassWriter.Code.INVOKEVIRTUAL, writer.methodRef(INTERPRETER, "taken", "(II)Z"));
+            code.jump(ClassWriter.Code.IFEQ, exitLabel(jump[1]));
+            code.jump(ClassWriter.Code.GOTO, jump[3]);
+        }
+
+        for (int[] exit : exits) {
+            code.mark(exit[0]);
+            exit(exit[1], epilogue);
+        }
+
+        // write back the registers and return the pc saved by the exit.
+        code.mark(epilogue);
+        for (int reg = 0; reg < Environment.REGISTER_COUNT; reg++) {
+            if (written[reg]) {
+                code.op(ClassWriter.Code.ALOAD_1);
+                code.pushInt(reg, writer);
+                code.iload(locals[reg]);
+                code.op(ClassWriter.Code.IASTORE);
+            }
+        }
+        code.iload(EXIT_PC);
+        code.op(ClassWriter.Code.IRETURN);
+
+        ClassWriter.Code constructor = new ClassWriter.Code();
+        constructor.op(ClassWriter.Code.ALOAD_0);
+        constructor.op(ClassWriter.Code.INVOKESPECIAL, writer.methodRef("java/lang/Object", "<init>", "()V"));
+        constructor.op(ClassWriter.Code.RETURN);
+        writer.method(0x0001, "<init>", "()V", 1, 1, constructor.toByteArray());
+        writer.method(0x0001, "run", DESCRIPTOR, 4, localCount, code.toByteArray());
+        return writer.toByteArray();
+    }
+
+    private void instruction(int pc, int[] instructions, int[] labels) {
+        int i = pc * Program.WIDTH;
+        int opcode = instructions[i];
+        int a = instructions[i + 1];
+        int b = instructions[i + 2];
+        int c = instructions[i + 3];
+        switch (opcode) {
+            case Opcode.ADD:
+                binary(a, b, c, ClassWriter.Code.IADD);
+                break;
+            case Opcode.SUB:
+                binary(a, b, c, ClassWriter.Code.ISUB);
+                break;
+            case Opcode.MUL:
+                binary(a, b, c, ClassWriter.Code.IMUL);
+                break;
+            case Opcode.DIV:
+                // a zero divisor goes back to the interpreter to raise the error.
+                code.iload(locals[c]);
+                code.jump(ClassWriter.Code.IFEQ, exitLabel(pc));
+                binary(a, b, c, ClassWriter.Code.IDIV);
+                break;
+            case Opcode.AND:
+                binary(a, b, c, ClassWriter.Code.IAND);
+                break;
+            case Opcode.OR:
+                binary(a, b, c, ClassWriter.Code.IOR);
+                break;
+            case Opcode.XOR:
+                binary(a, b, c, ClassWriter.Code.IXOR);
+                break;
+            case Opcode.ADDI:
+                immediate(a, b, c, ClassWriter.Code.IADD);
+                break;
+            case Opcode.SUBI:
+                immediate(a, b, c, ClassWriter.Code.ISUB);
+                break;
+            case Opcode.MULI:
+                immediate(a, b, c, ClassWriter.Code.IMUL);
+                break;
+            case Opcode.DIVI:
+                if (c == 0) {
+                    code.jump(ClassWriter.Code.GOTO, exitLabel(pc));
+                } else {
+                    immediate(a, b, c, ClassWriter.Code.IDIV);
+                }
+                break;
+            case Opcode.ANDI:
+                immediate(a, b, c, ClassWriter.Code.IAND);
+                break;
+            case Opcode.ORI:
+                immediate(a, b, c, ClassWriter.Code.IOR);
+                break;
+            case Opcode.XORI:
+                immediate(a, b, c, ClassWriter.Code.IXOR);
+                break;
+            case Opcode.SLL:
+                code.iload(locals[b]);
+                code.pushInt(c, writer);
+                code.op(ClassWriter.Code.IMUL);
+                code.pushInt(2, writer);
+                code.op(ClassWriter.Code.IMUL);
+                code.istore(locals[a]);
+                break;
+            case Opcode.SRL:
+                if (c == 0) {
+                    code.jump(ClassWriter.Code.GOTO, exitLabel(pc));
+                } else {
+                    code.iload(locals[b]);
+                    code.pushInt(c, writer);
+                    code.op(ClassWriter.Code.IDIV);
+                    code.pushInt(2, writer);
+                    code.op(ClassWriter.Code.IMUL);
+                    code.istore(locals[a]);
+                }
+                break;
+            case Opcode.SWAP:
+                code.iload(locals[a]);
+                code.iload(locals[b]);
+                code.istore(locals[a]);
+                code.istore(locals[b]);
+                break;
+            case Opcode.BEQ:
+                branch(pc, a, b, c, ClassWriter.Code.IF_ICMPEQ, labels);
+                break;
+            case Opcode.BNQ:
+                branch(pc, a, b, c, ClassWriter.Code.IF_ICMPNE, labels);
+                break;
+            case Opcode.BGT:
+                branch(pc, a, b, c, ClassWriter.Code.IF_ICMPGT, labels);
+                break;
+            case Opcode.BGE:
+                branch(pc, a, b, c, ClassWriter.Code.IF_ICMPGE, labels);
+                break;
+            case Opcode.BLT:
+                branch(pc, a, b, c, ClassWriter.Code.IF_ICMPLT, labels);
+                break;
+            case Opcode.BLE:
+                branch(pc, a, b, c, ClassWriter.Code.IF_ICMPLE, labels);
+                break;
+            case Opcode.J:
+                code.jump(ClassWriter.Code.GOTO, jumpLabel(pc, c, labels));
+                break;
+            case Opcode.PRINT:
+                code.op(ClassWriter.Code.ALOAD_2);
+                code.iload(locals[a]);
+                code.op(ClassWriter.Code.INVOKEVIRTUAL, writer.methodRef(INTERPRETER, "print", "(I)V"));
+                break;
+            case Opcode.NOP:
+                break;
+            case Opcode.LI:
+                code.pushInt(c, writer);
+                code.istore(locals[a]);
+                break;
+            case Opcode.MOVE:
+                code.iload(locals[b]);
+                code.istore(locals[a]);
+                break;
+            case Opcode.SHLI:
+                immediate(a, b, c, ClassWriter.Code.ISHL);
+                break;
+            case Opcode.ADDI_BEQ:
+            case Opcode.ADDI_BNQ:
+            case Opcode.ADDI_BGT:
+            case Opcode.ADDI_BGE:
+            case Opcode.ADDI_BLT:
+            case Opcode.ADDI_BLE:
+                // the branch is still the next instruction, it is compiled on its own.
+                immediate(a, b, c, ClassWriter.Code.IADD);
+                break;
+            default:
+                throw new IllegalStateException("Unknown opcode " + opcode + ".");
+        }
+    }
+
+    // binary method writes reg[a] = reg[b] op reg[c].
+    private void binary(int a, int b, int c, int op) {
+        code.iload(locals[b]);
+        code.iload(locals[c]);
+        code.op(op);
+        code.istore(locals[a]);
+    }
+
+    // immediate method writes reg[a] = reg[b] op c.
+    private void immediate(int a, int b, int c, int op) {
+        code.iload(locals[b]);
+        code.pushInt(c, writer);
+        code.op(op);
+        code.istore(locals[a]);
+    }
+
+    // branch method writes a conditional jump taken when reg[b] compared to reg[a] holds.
+    private void branch(int pc, int a, int b, int target, int op, int[] labels) {
+        code.iload(locals[b]);
+        code.iload(locals[a]);
+        code.jump(op, jumpLabel(pc, target, labels));
+    }
+
+    // jumpLabel method returns the label the jump at pc goes to, which counts the jump first when counted.
+    private int jumpLabel(int pc, int target, int[] labels) {
+        if (!counted)
+            return targetLabel(target, labels);
+        int label = code.newLabel();
+        jumps.add(new int[] { label, pc, target, targetLabel(target, labels) });
+        return label;
+    }
+
+    // targetLabel method returns the label of a jump target, targets out of the range become exits.
+    private int targetLabel(int target, int[] labels) {
+        if (target >= start && target <= end)
+            return labels[target - start];
+        return exitLabel(target);
+    }
+
+    // exitLabel method returns a label that leaves the compiled code and continues at pc.
+    private int exitLabel(int pc) {
+        int label = code.newLabel();
+        exits.add(new int[] { label, pc });
+        return label;
+    }
+
+    private void exit(int pc, int epilogue) {
+        code.pushInt(pc, writer);
+        code.istore(EXIT_PC);
+        code.jump(ClassWriter.Code.GOTO, epilogue);
+    }
+
+    private void use(int reg, boolean write) {
+        if (locals[reg] < 0)
+            locals[reg] = localCount++;
+        if (write)
+            written[reg] = true;
+    }
+}
@@ -0,0 +1,81 @@
+package com.mips;
+
+import java.io.PrintStream;
+import java.util.List;
+
+// BranchModel feeds the outcome of every conditional branch of a run to a set of predictors and
+// counts how often each of them was right, per branch and overall. The outcome is computed from
+// the registers before the branch runs, so it is known without looking at where the run goes.
+class BranchModel {
+    private final Program program;
+    private final BranchPredictor[] predictors;
+    // executed and taken hold the executions and taken outcomes of the branch at every pc.
+    private final long[] executed;
+    private final long[] taken;
+    // correct holds, per predictor, the right predictions for the branch at every pc.
+    private final long[][] correct;
+
+    BranchModel(Program program, List<BranchPredictor> predictors) {
+        this.program = program;
+        this.predictors = predictors.toArray(new BranchPredictor[0]);
+        this.executed = new long[program.length];
+        this.taken = new long[program.length];
+        this.correct = new long[this.predictors.length][program.length];
+    }
+
+    // step method is called before the instruction at pc runs, it only looks at conditional branches.
+    void step(int pc, int[] registers) {
+        int i = pc * Program.WIDTH;
+        int opcode = program.code[i];
+        if (!Opcode.isBranch(opcode))
+            return;
+        int target = program.code[i + 3];
+        boolean outcome = Opcode.taken(opcode, registers[program.code[i + 2]], registers[program.code[i + 1]]);
+        executed[pc]++;
+        if (outcome)
+            taken[pc]++;
+        for (int p = 0; p < predictors.length; p++) {
+            BranchPredictor predictor = predictors[p];
+            if (predictor.predict(pc, target) == outcome)
+                correct[p][pc]++;
+            predictor.update(pc, outcome);
+        }
+    }
+
+    // report method prints the accuracy of every predictor overall and on every branch that ran.
+    void report(PrintStream out) {
+        long branches = 0;
+        for (long count : executed) {
+            branches += count;
+        }
+        out.println("branches: " + branches + " conditional branches executed");
+        out.printf("%-12s %14s %8s%n", "predictor", "mispredicted", "accuracy");
+        for (int p = 0; p < predictors.length; p++) {
+            long right = 0;
+            for (long count : correct[p]) {
+                right += count;
+            }
+            out.printf("%-12s %14d %7.2f%%%n", predictors[p].name(), branches - right, percent(right, branches));
+        }
+        StringBuilder header = new StringBuilder(String.format("%8s %8s %-5s %14s %7s", "pc", "line", "op", "count", "taken"));
+        for (BranchPredictor predictor : predictors) {
+            header.append(String.format(" %9s", predictor.name()));
+        }
+        out.println(header);
+        for (int pc = 0; pc < program.length; pc++) {
+            if (executed[pc] == 0)
+                continue;
+            // pcs are printed from 1 like the trace, the pipeline and the control-flow graph do.
+            StringBuilder line = new StringBuilder(String.format("%8d %8d %-5s %14d %6.2f%%", pc + 1, program.lines[pc],
+                    Opcode.type(program.opcode(pc)).name().toLowerCase(), executed[pc], percent(taken[pc], executed[pc])));
+            for (int p = 0; p < predictors.length; p++) {
+                line.append(String.format(" %8.2f%%", percent(correct[p][pc], executed[pc])));
+            }
+            out.println(line);
+        }
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0.0 : 100.0 * part / whole;
+    }
+}
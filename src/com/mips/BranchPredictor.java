@@ -0,0 +1,134 @@
+package com.mips;
+
+// BranchPredictor guesses the outcome of a conditional branch before it runs and learns from the
+// real outcome. The tables are primitive arrays indexed by the low bits of the pc, like the
+// tables of a real predictor, so branches may share an entry and disturb each other.
+interface BranchPredictor {
+    // predict method returns true if the branch at pc, going to target, is predicted taken.
+    boolean predict(int pc, int target);
+
+    // update method tells the predictor the outcome of the branch it last predicted.
+    void update(int pc, boolean taken);
+
+    // name method returns the name of the predictor in reports.
+    String name();
+
+    // of method creates a predictor from its name: static, 1bit, 2bit, gshare or gshare:bits where
+    // bits is the number of history bits and the log2 of the table size.
+    static BranchPredictor of(String name) {
+        if (name.equals("static"))
+            return new Static();
+        if (name.equals("1bit"))
+            return new OneBit(Gshare.DEFAULT_BITS);
+        if (name.equals("2bit"))
+            return new TwoBit(Gshare.DEFAULT_BITS);
+        if (name.equals("gshare"))
+            return new Gshare(Gshare.DEFAULT_BITS);
+        if (name.startsWith("gshare:")) {
+            String bits = name.substring("gshare:".length());
+            if (!bits.matches("\\d{1,2}") || Integer.parseInt(bits) < 1 || Integer.parseInt(bits) > 24)
+                throw new IllegalArgumentException("gshare takes 1 to 24 bits: " + name);
+            return new Gshare(Integer.parseInt(bits));
+        }
+        throw new IllegalArgumentException("Unknown branch predictor: " + name);
+    }
+
+    // Static predicts backward branches taken and forward branches not taken, loops mostly go back.
+    final class Static implements BranchPredictor {
+        public boolean predict(int pc, int target) {
+            return target <= pc;
+        }
+
+        public void update(int pc, boolean taken) {
+        }
+
+        public String name() {
+            return "static";
+        }
+    }
+
+    // OneBit predicts what the branch did the last time.
+    final class OneBit implements BranchPredictor {
+        private final boolean[] table;
+        private final int mask;
+
+        OneBit(int bits) {
+            this.table = new boolean[1 << bits];
+            this.mask = (1 << bits) - 1;
+        }
+
+        public boolean predict(int pc, int target) {
+            return table[pc & mask];
+        }
+
+        public void update(int pc, boolean taken) {
+            table[pc & mask] = taken;
+        }
+
+        public String name() {
+            return "1bit";
+        }
+    }
+
+    // TwoBit keeps a saturating counter from 0 to 3 per entry, 2 and 3 predict taken, so one odd
+    // outcome, like the exit of a loop, does not change the prediction.
+    final class TwoBit implements BranchPredictor {
+        private final byte[] table;
+        private final int mask;
+
+        TwoBit(int bits) {
+            this.table = new byte[1 << bits];
+            this.mask = (1 << bits) - 1;
+        }
+
+        public boolean predict(int pc, int target) {
+            return table[pc & mask] >= 2;
+        }
+
+        public void update(int pc, boolean taken) {
+            int i = pc & mask;
+            if (taken && table[i] < 3)
+                table[i]++;
+            else if (!taken && table[i] > 0)
+                table[i]--;
+        }
+
+        public String name() {
+            return "2bit";
+        }
+    }
+
+    // Gshare indexes 2-bit counters with the pc xor the outcomes of the last branches, so a branch
+    // that depends on the branches before it is predicted from that history.
+    final class Gshare implements BranchPredictor {
+        static final int DEFAULT_BITS = 10;
+
+        private final byte[] table;
+        private final int mask;
+        private final int bits;
+        private int history = 0;
+
+        Gshare(int bits) {
+            this.table = new byte[1 << bits];
+            this.mask = (1 << bits) - 1;
+            this.bits = bits;
+        }
+
+        public boolean predict(int pc, int target) {
+            return table[(pc ^ history) & mask] >= 2;
+        }
+
+        public void update(int pc, boolean taken) {
+            int i = (pc ^ history) & mask;
+            if (taken && table[i] < 3)
+                table[i]++;
+            else if (!taken && table[i] > 0)
+                table[i]--;
+            history = ((history << 1) | (taken ? 1 : 0)) & mask;
+        }
+
+        public String name() {
+            return "gshare:" + bits;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.mips;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// ByteScanner scans source bytes one token at a time, it is the streaming counterpart of Scanner.
+// No list of tokens is built: next() moves to the following token and its type, value, line and
+// position can be read from the scanner until next() is called again. Nothing is allocated while
+// scanning: keywords are found with a perfect hash and numbers are parsed from the bytes.
+class ByteScanner implements TokenCursor {
+    private final ByteBuffer source;
+    private final Reporter reporter;
+    private final int limit;
+    private int current;
+    private int line = 1;
+
+    // the current token.
+    private TokenType type;
+    private int value;
+    private int start;
+    private int tokenLine;
+
+    ByteScanner(ByteBuffer source) {
+        this(source, Main.reporter);
+    }
+
+    ByteScanner(ByteBuffer source, Reporter reporter) {
+        this(source, reporter, 1);
+    }
+
+    // ByteScanner scans a source whose first line is line, for pieces of a larger source.
+    ByteScanner(ByteBuffer source, Reporter reporter, int line) {
+        this.source = source;
+        this.reporter = reporter;
+        this.current = source.position();
+        this.limit = source.limit();
+        this.line = line;
+    }
+
+    // scanTokens method scans the whole source into a TokenBuffer.
+    TokenBuffer scanTokens() {
+        // a token takes about 4 bytes of source, start with room for that many.
+        TokenBuffer tokens = new TokenBuffer(source, (limit - current) / 4);
+        while (next() != TokenType.EOF) {
+            tokens.add(type, start, current - start, tokenLine, value);
+        }
+        tokens.add(type, start, 0, tokenLine, 0);
+        return tokens;
+    }
+
+    // next method scans the next token and returns its type, EOF at the end of the source.
+    @Override
+    public TokenType next() {
+        while (current < limit) {
+            start = current;
+            tokenLine = line;
+            byte c = source.get(current++);
+            switch (c) {
+                case '(':
+                    return token(TokenType.LEFT_PAREN);
+                case ')':
+                    return token(TokenType.RIGHT_PAREN);
+                case ',':
+                    return token(TokenType.COMMA);
+                case ';':
+                    return token(TokenType.SEMICOLON);
+                case ':':
+                    return token(TokenType.COLON);
+                case '-':
+                    return token(TokenType.MINUS);
+                case ' ':
+                case '\r':
+                case '\t':
+                    // Ignore whitespace.
+                    break;
+                case '\n':
+                    line++;
+                    break;
+                case '$':
+                    return register();
+                default:
+                    if (isDigit(c)) {
+                        return number();
+                    } else if (isAlpha(c)) {
+                        return identifier();
+                    }
+                    reporter.error(line, "Unexpected character.");
+                    break;
+            }
+        }
+        start = current;
+        tokenLine = line;
+        return token(TokenType.EOF);
+    }
+
+    @Override
+    public TokenType type() {
+        return type;
+    }
+
+    @Override
+    public int value() {
+        return value;
+    }
+
+    @Override
+    public int line() {
+        return tokenLine;
+    }
+
+    // text method returns the text of the current token, it allocates so it is only used for errors.
+    private String text() {
+        byte[] bytes = new byte[current - start];
+        source.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public Token token() {
+        return new Token(type, type == TokenType.EOF ? "" : text(), null, tokenLine);
+    }
+
+    private TokenType token(TokenType type) {
+        this.type = type;
+        return type;
+    }
+
+    private byte peek() {
+        if (current >= limit)
+            return '\0';
+        return source.get(current);
+    }
+
+    // number method parses the digits as they are scanned.
+    private TokenType number() {
+        long number = source.get(start) - '0';
+        while (isDigit(peek())) {
+            number = number * 10 + (source.get(current++) - '0');
+            // stop growing once we know it does not fit, the digits are still consumed
+            if (number > Integer.MAX_VALUE)
+                number = Integer.MAX_VALUE + 1L;
+        }
+        if (number > Integer.MAX_VALUE)
+            reporter.error(line, "Number is too large.");
+        // Look for a fractional part, numbers are integers so it is an error.
+        if (peek() == '.' && current + 1 < limit && isDigit(source.get(current + 1))) {
+            current++;
+            while (isDigit(peek()))
+                current++;
+            reporter.error(line, "Expect an integer.");
+        }
+        value = (int) number;
+        return token(TokenType.NUMBER);
+    }
+
+    private TokenType identifier() {
+        while (isAlphaNumeric(peek()))
+            current++;
+        // See if the identifier is a reserved word.
+        TokenType keyword = Keywords.lookup(source, start, current - start);
+        return token(keyword == null ? TokenType.IDENTIFIER : keyword);
+    }
+
+    // register method scans a register, the current token is the name without the $.
+    private TokenType register() {
+        start++;
+        while (isAlphaNumeric(peek()))
+            current++;
+        if (current - start != 2 || !isRegister(source.get(start)) || !isDigit(source.get(start + 1))) {
+            reporter.error(line, "Invalid register.");
+            value = 0;
+        } else {
+            value = index(source.get(start), source.get(start + 1));
+        }
+        return token(TokenType.REGISTER);
+    }
+
+    // index method returns the index of a register in the register file, see Environment.index.
+    private static int index(byte letter, byte digit) {
+        int base = letter == 'v' ? 0 : letter == 'a' ? 10 : letter == 't' ? 20 : 30;
+        return base + digit - '0';
+    }
+
+    private static boolean isRegister(byte c) {
+        return c == 'v' || c == 't' || c == 's' || c == 'a';
+    }
+
+    private static boolean isAlpha(byte c) {
+        return (c >= 'a' && c <= 'z') ||
+                (c >= 'A' && c <= 'Z') ||
+                c == '_';
+    }
+
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlphaNumeric(byte c) {
+        return isAlpha(c) || isDigit(c);
+    }
+}
@@ -0,0 +1,16 @@
+package com.mips;
+
+// Cancellation lets another thread stop a running program, the interpreter polls it on backward jumps.
+public final class Cancellation {
+    private volatile boolean cancelled = false;
+
+    // cancel method asks the program to stop.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // isCancelled method returns true once cancel was called.
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
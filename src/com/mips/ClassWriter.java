@@ -0,0 +1,324 @@
+package com.mips;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// ClassWriter writes a minimal class file: a constant pool, a list of methods and nothing else.
+// Classes are written with version 49 so the JVM verifies them without stack map frames.
+class ClassWriter {
+    private static final int VERSION = 49;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    // entries maps a constant to its index so every constant is written once.
+    private final Map<String, Integer> entries = new HashMap<>();
+    private int poolCount = 1;
+    private final List<byte[]> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    ClassWriter(String name, String superName, String... interfaceNames) {
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+        interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    // utf8 method returns the index of a string constant.
+    int utf8(String value) {
+        Integer index = entries.get("U" + value);
+        if (index != null)
+            return index;
+        try {
+            poolOut.writeByte(1);
+            poolOut.writeUTF(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return add("U" + value, 1);
+    }
+
+    // integer method returns the index of an int constant.
+    int integer(int value) {
+        Integer index = entries.get("I" + value);
+        if (index != null)
+            return index;
+        write(3, value);
+        return add("I" + value, 1);
+    }
+
+    // classRef method returns the index of a class given its internal name.
+    int classRef(String name) {
+        Integer index = entries.get("C" + name);
+        if (index != null)
+            return index;
+        int nameIndex = utf8(name);
+        writeRef(7, nameIndex);
+        return add("C" + name, 1);
+    }
+
+    // methodRef method returns the index of a method of a class.
+    int methodRef(String owner, String name, String descriptor) {
+        String key = "M" + owner + "." + name + descriptor;
+        Integer index = entries.get(key);
+        if (index != null)
+            return index;
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        writeRef(10, ownerIndex);
+        write2(nameAndType);
+        return add(key, 1);
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + descriptor;
+        Integer index = entries.get(key);
+        if (index != null)
+            return index;
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        writeRef(12, nameIndex);
+        write2(descriptorIndex);
+        return add(key, 1);
+    }
+
+    // method method adds a method with a Code attribute.
+    void method(int access, String name, String descriptor, int maxStack, int maxLocals, byte[] code) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int codeIndex = utf8("Code");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1);
+            out.writeShort(codeIndex);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            // no exception table and no attributes.
+            out.writeShort(0);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    // toByteArray method returns the class file.
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolCount);
+            out.write(pool.toByteArray());
+            // final and super.
+            out.writeShort(0x0030);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int index : interfaces) {
+                out.writeShort(index);
+            }
+            // no fields.
+            out.writeShort(0);
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            // no attributes.
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private int add(String key, int slots) {
+        int index = poolCount;
+        entries.put(key, index);
+        poolCount += slots;
+        if (poolCount > 0xFFFF)
+            throw new IllegalStateException("Constant pool is too large.");
+        return index;
+    }
+
+    private void write(int tag, int value) {
+        try {
+            poolOut.writeByte(tag);
+            poolOut.writeInt(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeRef(int tag, int value) {
+        try {
+            poolOut.writeByte(tag);
+            poolOut.writeShort(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void write2(int value) {
+        try {
+            poolOut.writeShort(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Code is a growable bytecode buffer with labels for forward and backward jumps.
+    static class Code {
+        static final int ALOAD_0 = 0x2a;
+        static final int ALOAD_1 = 0x2b;
+        static final int ALOAD_2 = 0x2c;
+        static final int IALOAD = 0x2e;
+        static final int IASTORE = 0x4f;
+        static final int SWAP = 0x5f;
+        static final int IADD = 0x60;
+        static final int ISUB = 0x64;
+        static final int IMUL = 0x68;
+        static final int ISHL = 0x78;
+        static final int IDIV = 0x6c;
+        static final int IAND = 0x7e;
+        static final int IOR = 0x80;
+        static final int IXOR = 0x82;
+        static final int IFEQ = 0x99;
+        static final int IFNE = 0x9a;
+        static final int IF_ICMPEQ = 0x9f;
+        static final int IF_ICMPNE = 0xa0;
+        static final int IF_ICMPLT = 0xa1;
+        static final int IF_ICMPGE = 0xa2;
+        static final int IF_ICMPGT = 0xa3;
+        static final int IF_ICMPLE = 0xa4;
+        static final int GOTO = 0xa7;
+        static final int IRETURN = 0xac;
+        static final int RETURN = 0xb1;
+        static final int INVOKEVIRTUAL = 0xb6;
+        static final int INVOKESPECIAL = 0xb7;
+
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+        // fixups holds the position of every jump and the label it jumps to.
+        private final List<int[]> fixups = new ArrayList<>();
+        private final List<Integer> labels = new ArrayList<>();
+
+        // op method writes a one byte instruction.
+        void op(int opcode) {
+            u1(opcode);
+        }
+
+        // op method writes an instruction with a two byte operand.
+        void op(int opcode, int operand) {
+            u1(opcode);
+            u2(operand);
+        }
+
+        void iload(int local) {
+            if (local <= 3) {
+                u1(0x1a + local);
+            } else {
+                u1(0x15);
+                u1(local);
+            }
+        }
+
+        void istore(int local) {
+            if (local <= 3) {
+                u1(0x3b + local);
+            } else {
+                u1(0x36);
+                u1(local);
+            }
+        }
+
+        // pushInt method pushes an int constant with the shortest instruction.
+        void pushInt(int value, ClassWriter writer) {
+            if (value >= -1 && value <= 5) {
+                u1(0x03 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                u1(0x10);
+                u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                u1(0x11);
+                u2(value);
+            } else {
+                int index = writer.integer(value);
+                if (index < 256) {
+                    u1(0x12);
+                    u1(index);
+                } else {
+                    op(0x13, index);
+                }
+            }
+        }
+
+        // newLabel method returns a label that is not placed yet.
+        int newLabel() {
+            labels.add(-1);
+            return labels.size() - 1;
+        }
+
+        // mark method places a label at the current position.
+        void mark(int label) {
+            labels.set(label, length);
+        }
+
+        // jump method writes a jump instruction to a label.
+        void jump(int opcode, int label) {
+            fixups.add(new int[] { length, label });
+            u1(opcode);
+            u2(0);
+        }
+
+        // toByteArray method resolves the jumps and returns the bytecode.
+        byte[] toByteArray() {
+            for (int[] fixup : fixups) {
+                int target = labels.get(fixup[1]);
+                if (target < 0)
+                    throw new IllegalStateException("Label is not placed.");
+                int offset = target - fixup[0];
+                if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+                    throw new IllegalStateException("Jump is too far.");
+                bytes[fixup[0] + 1] = (byte) (offset >> 8);
+                bytes[fixup[0] + 2] = (byte) offset;
+            }
+            if (length > 0xFFFF)
+                throw new IllegalStateException("Method is too large.");
+            byte[] code = new byte[length];
+            System.arraycopy(bytes, 0, code, 0, length);
+            return code;
+        }
+
+        private void u1(int value) {
+            if (length == bytes.length) {
+                byte[] grown = new byte[bytes.length * 2];
+                System.arraycopy(bytes, 0, grown, 0, length);
+                bytes = grown;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+    }
+}
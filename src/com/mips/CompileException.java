@@ -0,0 +1,19 @@
+package com.mips;
+
+import java.util.List;
+
+// CompileException is thrown by Simulator.compile when the source has syntax errors.
+public class CompileException extends Exception {
+    private static final long serialVersionUID = 1L;
+    private final List<String> errors;
+
+    CompileException(List<String> errors) {
+        super(String.join("\n", errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    // errors method returns the error messages, one per error, in the order they were found.
+    public List<String> errors() {
+        return errors;
+    }
+}
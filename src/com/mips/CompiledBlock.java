@@ -0,0 +1,7 @@
+package com.mips;
+
+// CompiledBlock is a part of a program compiled to JVM bytecode by BlockCompiler.
+interface CompiledBlock {
+    // run method runs the block on the register file and returns the pc where the interpreter continues.
+    int run(int[] registers, Interpreter interpreter);
+}
@@ -0,0 +1,128 @@
+package com.mips;
+
+import java.io.PrintStream;
+
+// ControlFlow is the control-flow graph of a program: its basic blocks and the edges between them.
+// A block starts at the first instruction, at every branch or jump target and after every branch
+// or jump, and runs straight to its last instruction. The end of the program is the exit, it is
+// numbered count() as if it were one more block.
+final class ControlFlow {
+    private final Program program;
+    // starts holds the first instruction of every block, in order, plus the end of the program.
+    private final int[] starts;
+    // blocks maps every instruction to its block.
+    private final int[] blocks;
+
+    private ControlFlow(Program program, int[] starts, int[] blocks) {
+        this.program = program;
+        this.starts = starts;
+        this.blocks = blocks;
+    }
+
+    // verify method reports every branch or jump whose target is outside the program, the end of
+    // the program is a valid target. The engines rely on it and do not check targets while running.
+    static boolean verify(Program program, Reporter reporter) {
+        return verify(program, 0, reporter);
+    }
+
+    // verify method checks the instructions from start on, the ones before were checked already.
+    static boolean verify(Program program, int start, Reporter reporter) {
+        return verify(program, start, program.length, reporter);
+    }
+
+    // verify method checks the instructions from start to end, the Linker checks every file on its own.
+    static boolean verify(Program program, int start, int end, Reporter reporter) {
+        boolean valid = true;
+        for (int pc = start; pc < end; pc++) {
+            int opcode = program.opcode(pc);
+            if (!Opcode.isBranch(opcode) && opcode != Opcode.J)
+                continue;
+            int target = program.code[pc * Program.WIDTH + 3];
+            if (target < 0 || target > program.length) {
+                reporter.error(program.token(pc), opcode == Opcode.J ? "Invalid jump address." : "Invalid address.");
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    // of method builds the graph of a verified program.
+    static ControlFlow of(Program program) {
+        int length = program.length;
+        boolean[] leader = new boolean[length + 1];
+        leader[0] = true;
+        leader[length] = true;
+        for (int pc = 0; pc < length; pc++) {
+            int opcode = program.opcode(pc);
+            if (Opcode.isBranch(opcode) || opcode == Opcode.J) {
+                leader[program.code[pc * Program.WIDTH + 3]] = true;
+                leader[pc + 1] = true;
+            }
+        }
+        int count = 0;
+        for (int pc = 0; pc < length; pc++) {
+            if (leader[pc])
+                count++;
+        }
+        int[] starts = new int[count + 1];
+        int[] blocks = new int[length + 1];
+        int block = -1;
+        for (int pc = 0; pc < length; pc++) {
+            if (leader[pc])
+                starts[++block] = pc;
+            blocks[pc] = block;
+        }
+        starts[count] = length;
+        blocks[length] = count;
+        return new ControlFlow(program, starts, blocks);
+    }
+
+    // count method returns the number of blocks, the exit is not counted.
+    int count() {
+        return starts.length - 1;
+    }
+
+    // start method returns the first instruction of a block.
+    int start(int block) {
+        return starts[block];
+    }
+
+    // end method returns the last instruction of a block.
+    int end(int block) {
+        return starts[block + 1] - 1;
+    }
+
+    // blockOf method returns the block holding the instruction at pc, or count() for the end of the program.
+    int blockOf(int pc) {
+        return blocks[pc];
+    }
+
+    // successors method returns the blocks a block can continue to: the next block when it falls
+    // through, then the target block of its branch or jump.
+    int[] successors(int block) {
+        int last = end(block);
+        int opcode = program.opcode(last);
+        int next = block + 1;
+        if (opcode == Opcode.J)
+            return new int[] { blocks[program.code[last * Program.WIDTH + 3]] };
+        if (Opcode.isBranch(opcode)) {
+            int target = blocks[program.code[last * Program.WIDTH + 3]];
+            return target == next ? new int[] { next } : new int[] { next, target };
+        }
+        return new int[] { next };
+    }
+
+    // print method prints one line per block: its instructions, their lines and its successors.
+    void print(PrintStream out) {
+        for (int block = 0; block < count(); block++) {
+            StringBuilder line = new StringBuilder();
+            line.append("block ").append(block).append(": ").append(start(block) + 1).append('-').append(end(block) + 1)
+                    .append(" (lines ").append(program.lines[start(block)]).append('-')
+                    .append(program.lines[end(block)]).append(") ->");
+            for (int successor : successors(block)) {
+                line.append(' ').append(successor == count() ? "exit" : String.valueOf(successor));
+            }
+            out.println(line);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.mips;
+
+import java.util.List;
+import com.mips.Inst.Itype;
+import com.mips.Inst.Jtype;
+import com.mips.Inst.Print;
+import com.mips.Inst.Rtype;
+
+// Decoder lowers the instructions returned by the parser into a Program,
+// so the interpreter does not touch tokens while executing.
+class Decoder implements Inst.Visitor<Void> {
+    private final ProgramBuilder builder;
+
+    Decoder() {
+        this(new ProgramBuilder());
+    }
+
+    Decoder(ProgramBuilder builder) {
+        this.builder = builder;
+    }
+
+    // decode method decodes a list of instructions into a program.
+    Program decode(List<Inst> instructions) {
+        for (Inst instruction : instructions) {
+            instruction.accept(this);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Void visitRtypeInst(Rtype Ints) {
+        builder.add(Opcode.of(Ints.opcode.type), Ints.rdIndex, Ints.rsIndex, Ints.rtIndex, Ints.opcode.line);
+        return null;
+    }
+
+    @Override
+    public Void visitItypeInst(Itype Inst) {
+        int opcode = Opcode.of(Inst.opcode.type);
+        int imm = (Integer) Inst.imm.literal;
+        if (Opcode.isBranch(opcode)) {
+            // branches are relative to the next instruction, store the absolute target
+            imm = builder.size() + imm + 1;
+        }
+        builder.add(opcode, Inst.rtIndex, Inst.rsIndex, imm, Inst.opcode.line);
+        return null;
+    }
+
+    @Override
+    public Void visitJtypeInst(Jtype Inst) {
+        // jump addresses are 1-based, store the 0-based target
+        builder.add(Opcode.J, 0, 0, (Integer) Inst.address.literal - 1, Inst.opcode.line);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintInst(Print Inst) {
+        builder.add(Opcode.PRINT, Inst.rdIndex, 0, 0, Inst.rd.line);
+        return null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mips;
+
+// Engine selects how the interpreter runs a program.
+enum Engine {
+    // VISITOR walks the parsed instructions with Inst.Visitor, it is kept for tooling.
+    VISITOR,
+    // SWITCH decodes the instructions once and dispatches every opcode through a single switch.
+    SWITCH,
+    // TIERED runs like SWITCH, finishes simple counting loops in closed form and compiles hot loops to JVM bytecode.
+    TIERED
+}
@@ -1,31 +1,67 @@
 package com.mips;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
-// Environment class is a subclass of Stmt to represent variable declarations like var a = 1;
+// Environment class is the register file of the simulator, registers are stored in a flat int array
 class Environment {
-    // Map is a class that maps keys to values
-    private final Map<String, Object> values = new HashMap<>();
+    // registers are named by a letter (v, a, t, s) followed by a digit, so we have 4 * 10 registers
+    static final int REGISTER_COUNT = 40;
+    // values is the array of register values, every register starts at 0
+    private final int[] values = new int[REGISTER_COUNT];
 
-    // get method is a method to get the value of a variable
-    Object get(Token name) {
-        if (values.containsKey(name.lexeme)) {
-            return values.get(name.lexeme);
-        }
-        return 0 ;
-    }
-    // assign method is a method to assign a value to a variable
-    void assign(Token name, Object value) {
-        // if the variable is found in the current environment, assign the value to the
-        if (values.containsKey(name.lexeme)) {
-            values.put(name.lexeme, value);
-            return;
+    // index method is a method to resolve a register name like t0 to its index in the register file
+    static int index(Token name) {
+        return index(name.lexeme);
+    }
+
+    // index method resolves a register name without the $, it returns 0 for invalid names
+    static int index(String lexeme) {
+        // the scanner already reported invalid registers, so we just map them to the first register
+        if (lexeme.length() != 2 || lexeme.charAt(1) < '0' || lexeme.charAt(1) > '9')
+            return 0;
+        int digit = lexeme.charAt(1) - '0';
+        switch (lexeme.charAt(0)) {
+            case 'v':
+                return digit;
+            case 'a':
+                return 10 + digit;
+            case 't':
+                return 20 + digit;
+            case 's':
+                return 30 + digit;
+            default:
+                return 0;
         }
-        define(name.lexeme, value);
     }
-    // define method is a method to define a variable
-    void define(String name, Object value) {
-        values.put(name, value);
+
+    // valid method tells whether a name without the $ names a register, like t0
+    static boolean valid(String lexeme) {
+        return lexeme.length() == 2 && "vats".indexOf(lexeme.charAt(0)) >= 0 && lexeme.charAt(1) >= '0'
+                && lexeme.charAt(1) <= '9';
+    }
+
+    // name method returns the name of a register from its index, like t0 for 20
+    static String name(int index) {
+        return "vats".charAt(index / 10) + String.valueOf(index % 10);
+    }
+
+    // get method is a method to get the value of a register
+    int get(int register) {
+        return values[register];
+    }
+
+    // registers method returns the backing array, the fast engine reads and writes it directly
+    int[] registers() {
+        return values;
+    }
+
+    // reset method sets every register back to 0
+    void reset() {
+        Arrays.fill(values, 0);
+    }
+
+    // assign method is a method to assign a value to a register
+    void assign(int register, int value) {
+        values[register] = value;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,18 @@
+package com.mips;
+
+// ExecutionLimitError is raised when a run goes over its Limits or is cancelled.
+public class ExecutionLimitError extends RuntimeError {
+    private static final long serialVersionUID = 1L;
+    // pc is the instruction where execution stopped.
+    final int pc;
+
+    ExecutionLimitError(Token token, int pc, String message) {
+        super(token, message + " Stopped at pc " + pc + ".");
+        this.pc = pc;
+    }
+
+    // pc method returns the instruction where execution stopped.
+    public int pc() {
+        return pc;
+    }
+}
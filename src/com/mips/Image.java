@@ -0,0 +1,90 @@
+package com.mips;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Image is a program assembled into machine words by the Assembler, ready to be shipped as a
+// binary file and run without scanning or parsing its source.
+//
+// An image file holds, as big-endian ints: MAGIC, FORMAT_VERSION, the word count, the constant
+// pool size, the words, the constant pool and the source line of every word. It is read through
+// a mapping and decoded once, the decoded program is kept so every run of the image shares it.
+final class Image {
+    private static final int MAGIC = 0x4D495042; // "MIPB"
+    static final int FORMAT_VERSION = 2;
+    private static final int HEADER = 4;
+
+    final int[] words;
+    // pool holds the immediates that do not fit in a word, in the order of the words using them.
+    final int[] pool;
+    final int[] lines;
+    private Program program;
+
+    Image(int[] words, int[] pool, int[] lines) {
+        this.words = words;
+        this.pool = pool;
+        this.lines = lines;
+    }
+
+    // program method returns the decoded program, the words are only decoded the first time.
+    synchronized Program program() throws IOException {
+        if (program == null)
+            program = Assembler.decode(this);
+        return program;
+    }
+
+    // read method maps an image file, it throws IOException if it is not an image of this version.
+    static Image read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER * 4L || size > Integer.MAX_VALUE)
+                throw new IOException("Not an image: " + path);
+            IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asIntBuffer();
+            if (ints.get() != MAGIC || ints.get() != FORMAT_VERSION)
+                throw new IOException("Not an image of this version: " + path);
+            int length = ints.get();
+            int constants = ints.get();
+            if (length < 0 || constants < 0 || ints.remaining() != 2L * length + constants)
+                throw new IOException("Truncated image: " + path);
+            int[] words = new int[length];
+            int[] pool = new int[constants];
+            int[] lines = new int[length];
+            ints.get(words);
+            ints.get(pool);
+            ints.get(lines);
+            return new Image(words, pool, lines);
+        }
+    }
+
+    // write method writes the image to a file. It is written to a temporary file first and moved
+    // in place, so an image file is never seen half written. The temporary file is created with the
+    // default permissions, not the owner-only ones of Files.createTempFile, since the image is shipped.
+    void write(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = directory.resolve("image" + Long.toUnsignedString(ThreadLocalRandom.current().nextLong())
+                + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer bytes = ByteBuffer.allocate((HEADER + 2 * words.length + pool.length) * 4);
+                bytes.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(words.length).putInt(pool.length);
+                IntBuffer ints = bytes.asIntBuffer();
+                ints.put(words).put(pool).put(lines);
+                bytes.position(0);
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
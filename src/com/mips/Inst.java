@@ -19,6 +19,10 @@ abstract class Inst {
             this.rs = rs;
             this.rt = rt;
             this.rd = rd;
+            // registers are resolved to their index in the register file once here
+            this.rsIndex = Environment.index(rs);
+            this.rtIndex = Environment.index(rt);
+            this.rdIndex = Environment.index(rd);
         }
 
         <R> R accept(Visitor<R> visitor) {
@@ -29,6 +33,9 @@ abstract class Inst {
         final Token rs;
         final Token rt;
         final Token rd;
+        final int rsIndex;
+        final int rtIndex;
+        final int rdIndex;
     }
 
     static class Itype extends Inst {
@@ -37,6 +44,8 @@ abstract class Inst {
             this.rs = rs;
             this.rt = rt;
             this.imm = imm;
+            this.rsIndex = Environment.index(rs);
+            this.rtIndex = Environment.index(rt);
         }
 
         <R> R accept(Visitor<R> visitor) {
@@ -47,6 +56,8 @@ abstract class Inst {
         final Token rs;
         final Token rt;
         final Token imm;
+        final int rsIndex;
+        final int rtIndex;
     }
 
     static class Jtype extends Inst {
@@ -66,6 +77,7 @@ abstract class Inst {
     static class Print extends Inst {
         Print(Token rd) {
             this.rd = rd;
+            this.rdIndex = Environment.index(rd);
         }
 
         <R> R accept(Visitor<R> visitor) {
@@ -73,6 +85,7 @@ abstract class Inst {
         }
 
         final Token rd;
+        final int rdIndex;
     }
 
     abstract <R> R accept(Visitor<R> visitor);
@@ -8,9 +8,53 @@ import com.mips.Inst.Rtype;
 
 class Interpreter implements Inst.Visitor<Object> {
     private Environment environment = new Environment();
+    // memory is the data memory of lw and sw, it is allocated by the first run that needs it
+    private Memory memory;
+    // jit compiles hot loops when the program is run with the tiered engine, it is null otherwise
+    private Jit jit;
+    // loops runs simple counting loops in closed form with the tiered engine, it is null otherwise
+    private LoopAccelerator loops;
+    // profile counts executions when profiling is on, it is null otherwise
+    private Profile profile;
+    // trace records every retired instruction when tracing is on, it is null otherwise
+    private Trace trace;
+    // pipeline times every retired instruction when the timing model is on, it is null otherwise
+    private Pipeline pipeline;
+    // branches feeds the conditional branches to predictors when branch modeling is on, it is null otherwise
+    private BranchModel branches;
+    // limits bounds the runs when it is set, retired is only counted then. Instructions are counted
+    // per straight-line segment: when a jump is taken the segment from segmentStart to the jump is added.
+    private Limits limits;
+    private long retired;
+    private int segmentStart;
+    private long deadline;
+    private int polls;
+    // running is the program of the current run, stopped the limit error a compiled or closed-form loop
+    // ran into, it is raised by jump when the loop returns
+    private Program running;
+    private ExecutionLimitError stopped;
+    // error is the runtime error that stopped the last run, or null
+    private RuntimeError error;
+    // output is the sink of the print instruction, it is flushed when a run stops
+    private final Output output;
+    // reporter receives the runtime errors
+    private final Reporter reporter;
     int pc = 0; // program counter
     int length; // length of instructions
 
+    Interpreter() {
+        this(Output.standard());
+    }
+
+    Interpreter(Output output) {
+        this(output, Main.reporter);
+    }
+
+    Interpreter(Output output, Reporter reporter) {
+        this.output = output;
+        this.reporter = reporter;
+    }
+
     // interpret method is used to interpret instructions
     void interpret(List<Inst> instructions) {
         try {
@@ -20,28 +64,460 @@ class Interpreter implements Inst.Visitor<Object> {
                 instructions.get(pc).accept(this);
             }
         } catch (RuntimeError error) {
-            Main.runtimeError(error);
+            // printed values come before the error message
+            output.flush();
+            reporter.runtimeError(error);
+        } finally {
+            output.flush();
         }
     }
 
-    // stringify method is used to convert an object to a string
-    private String stringify(Object object) {
-        if (object == null)
-            return "nil";
-        return object.toString();
+    // execute method is used to run a decoded program
+    void execute(Program program) {
+        execute(program, false);
+    }
+
+    // execute method is used to run a decoded program, every opcode is dispatched by a single switch.
+    // pc and the register file are kept in locals while running and pc is written back when we stop.
+    // when tiered is true hot loops are compiled to JVM bytecode, unless the run is profiled
+    // since compiled loops do not count executions.
+    void execute(Program program, boolean tiered) {
+        execute(program, tiered, 0);
     }
 
-    // get register value from environment if not exist, return 0
-    private Integer getRegValue(Token reg) {
-        if (environment.get(reg) == null) {
+    // resume method runs a decoded program from the pc where the last run stopped or a snapshot was taken
+    void resume(Program program, boolean tiered) {
+        execute(program, tiered, pc);
+    }
+
+    // execute method runs a decoded program from start, the REPL runs every new line this way
+    void execute(Program program, boolean tiered, int start) {
+        // compiled loops are not profiled, traced, timed nor modeled, so they are only used without
+        // profile, trace, pipeline and branch model. With limits they count their taken jumps.
+        // the jit is kept between runs of the same program so loops are compiled once
+        if (!tiered || observed()) {
+            jit = null;
+            loops = null;
+        } else if (jit == null || jit.program != program || jit.counted != (limits != null)) {
+            jit = new Jit(program, limits != null);
+            loops = new LoopAccelerator(program);
+        }
+        error = null;
+        running = program;
+        stopped = null;
+        retired = 0;
+        segmentStart = start;
+        if (limits != null)
+            deadline = limits.maxMillis > 0 ? System.nanoTime() + limits.maxMillis * 1_000_000 : Long.MAX_VALUE;
+        long[] counts = profile != null ? profile.counts : null;
+        Trace trace = this.trace;
+        Pipeline pipeline = this.pipeline;
+        BranchModel branches = this.branches;
+        // a single test per instruction when nothing observes the run
+        boolean observed = observed();
+        int[] code = program.code;
+        int[] regs = environment.registers();
+        int length = program.length;
+        int pc = start;
+        this.length = length;
+        try {
+            while (pc < length) {
+                if (observed) {
+                    if (counts != null)
+                        counts[pc]++;
+                    if (trace != null)
+                        trace.step(pc, regs);
+                    if (pipeline != null)
+                        pipeline.step(pc, regs);
+                    if (branches != null)
+                        branches.step(pc, regs);
+                }
+                int i = pc * Program.WIDTH;
+                int a = code[i + 1];
+                int b = code[i + 2];
+                int c = code[i + 3];
+                switch (code[i]) {
+                    case Opcode.ADD:
+                        regs[a] = regs[b] + regs[c];
+                        break;
+                    case Opcode.SUB:
+                        regs[a] = regs[b] - regs[c];
+                        break;
+                    case Opcode.MUL:
+                        regs[a] = regs[b] * regs[c];
+                        break;
+                    case Opcode.DIV:
+                        if (regs[c] == 0)
+                            throw new RuntimeError(program.token(pc), "Division by zero.");
+                        regs[a] = regs[b] / regs[c];
+                        break;
+                    case Opcode.AND:
+                        regs[a] = regs[b] & regs[c];
+                        break;
+                    case Opcode.OR:
+                        regs[a] = regs[b] | regs[c];
+                        break;
+                    case Opcode.XOR:
+                        regs[a] = regs[b] ^ regs[c];
+                        break;
+                    case Opcode.ADDI:
+                        regs[a] = regs[b] + c;
+                        break;
+                    case Opcode.SUBI:
+                        regs[a] = regs[b] - c;
+                        break;
+                    case Opcode.MULI:
+                        regs[a] = regs[b] * c;
+                        break;
+                    case Opcode.DIVI:
+                        if (c == 0)
+                            throw new RuntimeError(program.token(pc), "Division by zero.");
+                        regs[a] = regs[b] / c;
+                        break;
+                    case Opcode.ANDI:
+                        regs[a] = regs[b] & c;
+                        break;
+                    case Opcode.ORI:
+                        regs[a] = regs[b] | c;
+                        break;
+                    case Opcode.XORI:
+                        regs[a] = regs[b] ^ c;
+                        break;
+                    case Opcode.SLL:
+                        regs[a] = (regs[b] * c) * 2;
+                        break;
+                    case Opcode.SRL:
+                        if (c == 0)
+                            throw new RuntimeError(program.token(pc), "Division by zero.");
+                        regs[a] = (regs[b] / c) * 2;
+                        break;
+                    case Opcode.LW: {
+                        int address = regs[b] + c;
+                        Memory memory = memory();
+                        if (!memory.valid(address))
+                            throw new RuntimeError(program.token(pc), memory.fault(address));
+                        regs[a] = memory.get(address);
+                        break;
+                    }
+                    case Opcode.SW: {
+                        int address = regs[b] + c;
+                        Memory memory = memory();
+                        if (!memory.valid(address))
+                            throw new RuntimeError(program.token(pc), memory.fault(address));
+                        memory.put(address, regs[a]);
+                        break;
+                    }
+                    case Opcode.SWAP: {
+                        int temp = regs[a];
+                        regs[a] = regs[b];
+                        regs[b] = temp;
+                        break;
+                    }
+                    case Opcode.BEQ:
+                        if (regs[b] == regs[a]) {
+                            pc = jump(program, pc, c);
+                            continue;
+                        }
+                        break;
+                    case Opcode.BNQ:
+                        if (regs[b] != regs[a]) {
+                            pc = jump(program, pc, c);
+                            continue;
+                        }
+                        break;
+                    case Opcode.BGT:
+                        if (regs[b] > regs[a]) {
+                            pc = jump(program, pc, c);
+                            continue;
+                        }
+                        break;
+                    case Opcode.BGE:
+                        if (regs[b] >= regs[a]) {
+                            pc = jump(program, pc, c);
+                            continue;
+                        }
+                        break;
+                    case Opcode.BLT:
+                        if (regs[b] < regs[a]) {
+                            pc = jump(program, pc, c);
+                            continue;
+                        }
+                        break;
+                    case Opcode.BLE:
+                        if (regs[b] <= regs[a]) {
+                            pc = jump(program, pc, c);
+                            continue;
+                        }
+                        break;
+                    case Opcode.J:
+                        pc = jump(program, pc, c);
+                        continue;
+                    case Opcode.PRINT:
+                        print(regs[a]);
+                        break;
+                    case Opcode.NOP:
+                        pc += c;
+                        continue;
+                    case Opcode.LI:
+                        regs[a] = c;
+                        break;
+                    case Opcode.MOVE:
+                        regs[a] = regs[b];
+                        break;
+                    case Opcode.SHLI:
+                        regs[a] = regs[b] << c;
+                        break;
+                    // a fused addi runs the branch that follows it, whose operands are the next WIDTH ints. pc is moved
+                    // to the branch before it jumps, so a limit hit on the jump stops at the branch, after the addi.
+                    case Opcode.ADDI_BEQ:
+                        regs[a] = regs[b] + c;
+                        if (regs[code[i + 6]] == regs[code[i + 5]]) {
+                            pc++;
+                            pc = jump(program, pc, code[i + 7]);
+                            continue;
+                        }
+                        pc += 2;
+                        continue;
+                    case Opcode.ADDI_BNQ:
+                        regs[a] = regs[b] + c;
+                        if (regs[code[i + 6]] != regs[code[i + 5]]) {
+                            pc++;
+                            pc = jump(program, pc, code[i + 7]);
+                            continue;
+                        }
+                        pc += 2;
+                        continue;
+                    case Opcode.ADDI_BGT:
+                        regs[a] = regs[b] + c;
+                        if (regs[code[i + 6]] > regs[code[i + 5]]) {
+                            pc++;
+                            pc = jump(program, pc, code[i + 7]);
+                            continue;
+                        }
+                        pc += 2;
+                        continue;
+                    case Opcode.ADDI_BGE:
+                        regs[a] = regs[b] + c;
+                        if (regs[code[i + 6]] >= regs[code[i + 5]]) {
+                            pc++;
+                            pc = jump(program, pc, code[i + 7]);
+                            continue;
+                        }
+                        pc += 2;
+                        continue;
+                    case Opcode.ADDI_BLT:
+                        regs[a] = regs[b] + c;
+                        if (regs[code[i + 6]] < regs[code[i + 5]]) {
+                            pc++;
+                            pc = jump(program, pc, code[i + 7]);
+                            continue;
+                        }
+                        pc += 2;
+                        continue;
+                    case Opcode.ADDI_BLE:
+                        regs[a] = regs[b] + c;
+                        if (regs[code[i + 6]] <= regs[code[i + 5]]) {
+                            pc++;
+                            pc = jump(program, pc, code[i + 7]);
+                            continue;
+                        }
+                        pc += 2;
+                        continue;
+                    default:
+                        throw new IllegalStateException("Unknown opcode " + code[i] + ".");
+                }
+                pc++;
+            }
+        } catch (RuntimeError error) {
+            // a compiled or closed-form loop stops inside the loop, not at the branch that entered it
+            if (error instanceof ExecutionLimitError)
+                pc = ((ExecutionLimitError) error).pc;
+            // printed values come before the error message
+            output.flush();
+            this.error = error;
+            reporter.runtimeError(error);
+        } finally {
+            this.pc = pc;
+            if (trace != null)
+                trace.finish(regs, error == null);
+            // add the last segment, up to the end of the program or the instruction that failed
+            if (limits != null)
+                retired += Math.min(pc + 1, length) - segmentStart;
+            output.flush();
+        }
+    }
+
+    // observed method tells whether a profile, trace, pipeline or branch model looks at every instruction
+    private boolean observed() {
+        return profile != null || trace != null || pipeline != null || branches != null;
+    }
+
+    // jump method returns the target of a taken branch or jump, targets were checked by ControlFlow.verify.
+    // backward jumps go through the jit which may run a compiled loop and return where it stopped.
+    private int jump(Program program, int pc, int target) {
+        if (profile != null)
+            profile.taken[pc]++;
+        if (limits != null && !taken(pc, target))
+            throw stop();
+        if (jit != null && target <= pc) {
+            // a loop that can be run in closed form is finished at once, the others may be compiled
+            int exit = loops.backEdge(pc, target, environment.registers(), this);
+            if (exit < 0)
+                exit = jit.backEdge(pc, target, environment.registers(), this);
+            // a loop that went over the limits returned where it stopped
+            if (stopped != null)
+                throw stop();
+            return exit;
+        }
+        return target;
+    }
+
+    // taken method counts the jump from pc to target when the run has limits, compiled loops call it
+    // on every taken jump. It returns false and keeps the error in stopped when the run has to stop.
+    boolean taken(int pc, int target) {
+        retired += pc - segmentStart + 1;
+        segmentStart = pc + 1;
+        // limits are only checked on backward jumps, a program can not run long without one
+        if (target <= pc && (stopped = limitError(pc, false)) != null)
+            return false;
+        segmentStart = target;
+        return true;
+    }
+
+    // loop method is called when the loop from target to the branch at pc is about to run iterations
+    // more times in closed form, the branch being taken iterations - 1 times. It counts the loop like
+    // taken would and returns how many iterations may run: all of them, or those up to the branch that
+    // goes over the instruction limit, with the error kept in stopped. The clock and the cancellation
+    // are polled once for the whole loop.
+    long loop(int pc, int target, long iterations) {
+        if (limits == null)
+            return iterations;
+        long length = pc - target + 1;
+        if (limits.maxInstructions > 0 && retired + (iterations - 1) * length > limits.maxInstructions) {
+            long runs = (limits.maxInstructions - retired) / length + 1;
+            retired += runs * length;
+            segmentStart = pc + 1;
+            stopped = limitError(pc, false);
+            return runs;
+        }
+        stopped = limitError(pc, true);
+        if (stopped != null) {
+            // the branch was taken and nothing ran since, so the run stops at it.
+            segmentStart = pc + 1;
             return 0;
-        } else {
-            return (Integer) environment.get(reg);
         }
+        retired += (iterations - 1) * length;
+        return iterations;
+    }
+
+    // limitError method returns the error to stop with if the run went over its limits at pc, or null.
+    // The clock and the cancellation are only polled every 1024 calls since reading them is not free,
+    // unless poll is true.
+    private ExecutionLimitError limitError(int pc, boolean poll) {
+        if (limits.maxInstructions > 0 && retired > limits.maxInstructions)
+            return new ExecutionLimitError(running.token(pc), pc, "Instruction limit exceeded.");
+        if ((++polls & 1023) != 0 && !poll)
+            return null;
+        if (limits.cancellation != null && limits.cancellation.isCancelled())
+            return new ExecutionLimitError(running.token(pc), pc, "Execution cancelled.");
+        if (System.nanoTime() > deadline)
+            return new ExecutionLimitError(running.token(pc), pc, "Time limit exceeded.");
+        return null;
+    }
+
+    // stop method returns the limit error kept in stopped and clears it
+    private ExecutionLimitError stop() {
+        ExecutionLimitError error = stopped;
+        stopped = null;
+        return error;
+    }
+
+    // error method returns the runtime error that stopped the last run, or null if it ended normally
+    RuntimeError error() {
+        return error;
+    }
+
+    // reset method sets the registers and pc back to 0, nothing is allocated
+    void reset() {
+        environment.reset();
+        pc = 0;
+        error = null;
+    }
+
+    // registers method returns the register file, snapshots read and restore it
+    int[] registers() {
+        return environment.registers();
+    }
+
+    // hasMemory method tells whether the data memory was allocated or given
+    boolean hasMemory() {
+        return memory != null;
+    }
+
+    // register method returns the value of a register
+    int register(int index) {
+        return environment.get(index);
+    }
+
+    // memory method returns the data memory, a memory of the default size is allocated on first use
+    Memory memory() {
+        if (memory == null)
+            memory = new Memory(Memory.DEFAULT_SIZE);
+        return memory;
+    }
+
+    // setMemory method replaces the data memory, it is kept between runs
+    void setMemory(Memory memory) {
+        this.memory = memory;
+    }
+
+    // setLimits method bounds the next runs, or removes the bounds with null
+    void setLimits(Limits limits) {
+        this.limits = limits;
+    }
+
+    // retired method returns the instructions retired by the last run, it is only counted with limits
+    long retired() {
+        return retired;
+    }
+
+    // setTrace method turns tracing on for the next runs, or off with null
+    void setTrace(Trace trace) {
+        this.trace = trace;
+    }
+
+    // setPipeline method turns the timing model on for the next runs, or off with null
+    void setPipeline(Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    // setBranchModel method turns branch modeling on for the next runs, or off with null
+    void setBranchModel(BranchModel branches) {
+        this.branches = branches;
+    }
+
+    // setProfile method turns profiling on for the next runs, or off with null
+    void setProfile(Profile profile) {
+        this.profile = profile;
+    }
+
+    // print method prints the value of a register, compiled loops call it too
+    void print(int value) {
+        output.print(value);
+    }
+
+    // printSeries method prints count values from first by step, loops run in closed form call it
+    void printSeries(int first, int step, long count) {
+        output.printSeries(first, step, count);
+    }
+
+    // get register value from environment, registers default to 0
+    private int getRegValue(int reg) {
+        return environment.get(reg);
     }
 
     // assign register value to environment
-    private void setRegValue(Token reg, Integer value) {
+    private void setRegValue(int reg, int value) {
         environment.assign(reg, value);
     }
 
@@ -49,101 +525,99 @@ class Interpreter implements Inst.Visitor<Object> {
     @Override
     public Object visitRtypeInst(Rtype Ints) {
         if (Ints.opcode.type == TokenType.ADD) {
-            setRegValue(Ints.rd, getRegValue(Ints.rs) + getRegValue(Ints.rt));
+            setRegValue(Ints.rdIndex, getRegValue(Ints.rsIndex) + getRegValue(Ints.rtIndex));
         } else if (Ints.opcode.type == TokenType.SUB) {
-            setRegValue(Ints.rd, getRegValue(Ints.rs) - getRegValue(Ints.rt));
+            setRegValue(Ints.rdIndex, getRegValue(Ints.rsIndex) - getRegValue(Ints.rtIndex));
         } else if (Ints.opcode.type == TokenType.MUL) {
-            setRegValue(Ints.rd, getRegValue(Ints.rs) * getRegValue(Ints.rt));
+            setRegValue(Ints.rdIndex, getRegValue(Ints.rsIndex) * getRegValue(Ints.rtIndex));
         } else if (Ints.opcode.type == TokenType.DIV) {
             try {
-                setRegValue(Ints.rd, getRegValue(Ints.rs) / getRegValue(Ints.rt));
+                setRegValue(Ints.rdIndex, getRegValue(Ints.rsIndex) / getRegValue(Ints.rtIndex));
             } catch (ArithmeticException e) {
                 throw new RuntimeError(Ints.opcode, "Division by zero.");
             }
         } else if (Ints.opcode.type == TokenType.AND) {
-            setRegValue(Ints.rd, getRegValue(Ints.rs) & getRegValue(Ints.rt));
+            setRegValue(Ints.rdIndex, getRegValue(Ints.rsIndex) & getRegValue(Ints.rtIndex));
         } else if (Ints.opcode.type == TokenType.OR) {
-            setRegValue(Ints.rd, getRegValue(Ints.rs) | getRegValue(Ints.rt));
+            setRegValue(Ints.rdIndex, getRegValue(Ints.rsIndex) | getRegValue(Ints.rtIndex));
         } else if (Ints.opcode.type == TokenType.XOR) {
-            setRegValue(Ints.rd, getRegValue(Ints.rs) ^ getRegValue(Ints.rt));
+            setRegValue(Ints.rdIndex, getRegValue(Ints.rsIndex) ^ getRegValue(Ints.rtIndex));
         }
-        return getRegValue(Ints.rd);
+        return getRegValue(Ints.rdIndex);
     }
 
     @Override
     public Object visitItypeInst(Itype Inst) {
         if (Inst.opcode.type == TokenType.ADDI) {
-            setRegValue(Inst.rt, getRegValue(Inst.rs) + (Integer) Inst.imm.literal);
+            setRegValue(Inst.rtIndex, getRegValue(Inst.rsIndex) + (Integer) Inst.imm.literal);
         }
 
         else if (Inst.opcode.type == TokenType.SUBI) {
-            setRegValue(Inst.rt, getRegValue(Inst.rs) - (Integer) Inst.imm.literal);
+            setRegValue(Inst.rtIndex, getRegValue(Inst.rsIndex) - (Integer) Inst.imm.literal);
         } else if (Inst.opcode.type == TokenType.MULI) {
-            setRegValue(Inst.rt, getRegValue(Inst.rs) * (Integer) Inst.imm.literal);
+            setRegValue(Inst.rtIndex, getRegValue(Inst.rsIndex) * (Integer) Inst.imm.literal);
         } else if (Inst.opcode.type == TokenType.DIVI) {
             try {
-                setRegValue(Inst.rt, getRegValue(Inst.rs) / (Integer) Inst.imm.literal);
+                setRegValue(Inst.rtIndex, getRegValue(Inst.rsIndex) / (Integer) Inst.imm.literal);
             } catch (ArithmeticException e) {
                 throw new RuntimeError(Inst.opcode, "Division by zero.");
             }
         } else if (Inst.opcode.type == TokenType.ANDI) {
-            setRegValue(Inst.rt, getRegValue(Inst.rs) & (Integer) Inst.imm.literal);
+            setRegValue(Inst.rtIndex, getRegValue(Inst.rsIndex) & (Integer) Inst.imm.literal);
         } else if (Inst.opcode.type == TokenType.ORI) {
-            setRegValue(Inst.rt, getRegValue(Inst.rs) | (Integer) Inst.imm.literal);
+            setRegValue(Inst.rtIndex, getRegValue(Inst.rsIndex) | (Integer) Inst.imm.literal);
         } else if (Inst.opcode.type == TokenType.XORI) {
-            setRegValue(Inst.rt, getRegValue(Inst.rs) ^ (Integer) Inst.imm.literal);
+            setRegValue(Inst.rtIndex, getRegValue(Inst.rsIndex) ^ (Integer) Inst.imm.literal);
         } else if (Inst.opcode.type == TokenType.SLL) {
-            setRegValue(Inst.rt, (getRegValue(Inst.rs) * (Integer) Inst.imm.literal) * 2);
+            setRegValue(Inst.rtIndex, (getRegValue(Inst.rsIndex) * (Integer) Inst.imm.literal) * 2);
         } else if (Inst.opcode.type == TokenType.SRL) {
-            setRegValue(Inst.rt, (getRegValue(Inst.rs) / ((Integer) Inst.imm.literal) * 2));
+            setRegValue(Inst.rtIndex, (getRegValue(Inst.rsIndex) / ((Integer) Inst.imm.literal) * 2));
         } else if (Inst.opcode.type == TokenType.BEQ) {
-            if (getRegValue(Inst.rs) == getRegValue(Inst.rt)) {
+            if (getRegValue(Inst.rsIndex) == getRegValue(Inst.rtIndex)) {
                 pc += (Integer) Inst.imm.literal;
-                if (pc < -1 || pc >= length)
-                    throw new RuntimeError(Inst.opcode, "Invalid address.");
             }
         } else if (Inst.opcode.type == TokenType.BNQ) {
-            if (getRegValue(Inst.rs) != getRegValue(Inst.rt)) {
+            if (getRegValue(Inst.rsIndex) != getRegValue(Inst.rtIndex)) {
                 pc += (Integer) Inst.imm.literal;
-                if (pc < -1 || pc >= length)
-                    throw new RuntimeError(Inst.opcode, "Invalid address.");
             }
         }
 
         else if (Inst.opcode.type == TokenType.BGT) {
-            if (getRegValue(Inst.rs) > getRegValue(Inst.rt)) {
+            if (getRegValue(Inst.rsIndex) > getRegValue(Inst.rtIndex)) {
                 pc += (Integer) Inst.imm.literal;
-                if (pc < -1 || pc >= length)
-                    throw new RuntimeError(Inst.opcode, "Invalid address.");
             }
         }
 
         else if (Inst.opcode.type == TokenType.BGE) {
-            if (getRegValue(Inst.rs) >= getRegValue(Inst.rt)) {
+            if (getRegValue(Inst.rsIndex) >= getRegValue(Inst.rtIndex)) {
                 pc += (Integer) Inst.imm.literal;
-                if (pc < -1 || pc >= length)
-                    throw new RuntimeError(Inst.opcode, "Invalid address.");
             }
         }
 
         else if (Inst.opcode.type == TokenType.BLT) {
-            if (getRegValue(Inst.rs) < getRegValue(Inst.rt)) {
+            if (getRegValue(Inst.rsIndex) < getRegValue(Inst.rtIndex)) {
                 pc += (Integer) Inst.imm.literal;
-                if (pc < -1 || pc >= length)
-                    throw new RuntimeError(Inst.opcode, "Invalid address.");
             }
         }
 
         else if (Inst.opcode.type == TokenType.BLE) {
-            if (getRegValue(Inst.rs) <= getRegValue(Inst.rt)) {
+            if (getRegValue(Inst.rsIndex) <= getRegValue(Inst.rtIndex)) {
                 pc += (Integer) Inst.imm.literal;
-                if (pc < -1 || pc >= length)
-                    throw new RuntimeError(Inst.opcode, "Invalid address.");
             }
+        } else if (Inst.opcode.type == TokenType.LW) {
+            int address = getRegValue(Inst.rsIndex) + (Integer) Inst.imm.literal;
+            if (!memory().valid(address))
+                throw new RuntimeError(Inst.opcode, memory.fault(address));
+            setRegValue(Inst.rtIndex, memory.get(address));
+        } else if (Inst.opcode.type == TokenType.SW) {
+            int address = getRegValue(Inst.rsIndex) + (Integer) Inst.imm.literal;
+            if (!memory().valid(address))
+                throw new RuntimeError(Inst.opcode, memory.fault(address));
+            memory.put(address, getRegValue(Inst.rtIndex));
         } else if (Inst.opcode.type == TokenType.SWAP) {
-            Integer temp = getRegValue(Inst.rt);
-            setRegValue(Inst.rt, getRegValue(Inst.rs));
-            setRegValue(Inst.rs, temp);
+            int temp = getRegValue(Inst.rtIndex);
+            setRegValue(Inst.rtIndex, getRegValue(Inst.rsIndex));
+            setRegValue(Inst.rsIndex, temp);
         }
 
         return null;
@@ -154,14 +628,12 @@ class Interpreter implements Inst.Visitor<Object> {
         pc = (Integer) Inst.address.literal;
         pc -= 2; // because pc++ will be executed after this method and we assume instructions
                  // are 1-based
-        if (pc < -1 || pc >= length)
-            throw new RuntimeError(Inst.opcode, "Invalid jump address.");
         return null;
     }
 
     @Override
     public Object visitPrintInst(Print Inst) {
-        System.out.println(stringify(getRegValue(Inst.rd)));
+        print(getRegValue(Inst.rdIndex));
         return null;
     }
 }
\ No newline at end of file
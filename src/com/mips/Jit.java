@@ -0,0 +1,39 @@
+package com.mips;
+
+// Jit counts how often loops are entered through a backward branch and compiles the hot ones.
+class Jit {
+    // THRESHOLD is the number of backward branches to a pc before the loop starting there is compiled.
+    static final int THRESHOLD = 1000;
+
+    final Program program;
+    // counted tells whether compiled loops count their taken jumps for the limits of the run.
+    final boolean counted;
+    private final int[] counters;
+    private final CompiledBlock[] blocks;
+    // failed marks the loops that could not be compiled, so we do not try again.
+    private final boolean[] failed;
+
+    Jit(Program program, boolean counted) {
+        this.program = program;
+        this.counted = counted;
+        this.counters = new int[program.length + 1];
+        this.blocks = new CompiledBlock[program.length + 1];
+        this.failed = new boolean[program.length + 1];
+    }
+
+    // backEdge method is called when the branch at pc jumps back to target, it returns the next pc.
+    int backEdge(int pc, int target, int[] registers, Interpreter interpreter) {
+        CompiledBlock block = blocks[target];
+        if (block == null) {
+            if (failed[target] || ++counters[target] < THRESHOLD)
+                return target;
+            block = BlockCompiler.compile(program, target, pc, counted);
+            if (block == null) {
+                failed[target] = true;
+                return target;
+            }
+            blocks[target] = block;
+        }
+        return block.run(registers, interpreter);
+    }
+}
@@ -0,0 +1,84 @@
+package com.mips;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Keywords recognizes the reserved words in source bytes without building a String.
+// The words are stored in a table indexed by a perfect hash: a seed is searched once so that
+// no two words share a slot, then a lookup is one hash and one comparison.
+final class Keywords {
+    private static final int SIZE = 64;
+    private static final String[] WORDS = {
+            "add", "sub", "and", "sll", "srl", "or", "addi", "subi", "andi", "ori",
+            "beq", "bnq", "bgt", "bge", "blt", "ble", "j", "print", "mul", "div",
+            "muli", "divi", "swap", "lw", "sw"
+    };
+
+    private static final byte[][] words = new byte[SIZE][];
+    private static final TokenType[] types = new TokenType[SIZE];
+    private static final int seed;
+
+    static {
+        seed = findSeed();
+        for (String word : WORDS) {
+            byte[] bytes = word.getBytes(StandardCharsets.US_ASCII);
+            int slot = slot(seed, bytes, 0, bytes.length);
+            words[slot] = bytes;
+            types[slot] = Scanner.keyword(word);
+        }
+    }
+
+    private Keywords() {
+    }
+
+    // lookup method returns the token type of the word at source[start, start + length), or null.
+    static TokenType lookup(ByteBuffer source, int start, int length) {
+        int slot = slot(seed, source, start, length);
+        byte[] word = words[slot];
+        if (word == null || word.length != length)
+            return null;
+        for (int i = 0; i < length; i++) {
+            if (word[i] != source.get(start + i))
+                return null;
+        }
+        return types[slot];
+    }
+
+    // findSeed method returns the first seed that gives every word its own slot.
+    private static int findSeed() {
+        for (int candidate = 1; candidate < 1 << 20; candidate++) {
+            boolean[] used = new boolean[SIZE];
+            boolean perfect = true;
+            for (String word : WORDS) {
+                byte[] bytes = word.getBytes(StandardCharsets.US_ASCII);
+                int slot = slot(candidate, bytes, 0, bytes.length);
+                if (used[slot]) {
+                    perfect = false;
+                    break;
+                }
+                used[slot] = true;
+            }
+            if (perfect)
+                return candidate;
+        }
+        throw new IllegalStateException("No perfect hash for the keywords.");
+    }
+
+    private static int slot(int seed, byte[] bytes, int start, int length) {
+        return hash(seed, length, bytes[start], bytes[start + Math.min(1, length - 1)], bytes[start + length - 1]);
+    }
+
+    private static int slot(int seed, ByteBuffer bytes, int start, int length) {
+        return hash(seed, length, bytes.get(start), bytes.get(start + Math.min(1, length - 1)),
+                bytes.get(start + length - 1));
+    }
+
+    // hash method mixes the length and the first, second and last characters of a word.
+    private static int hash(int seed, int length, int first, int second, int last) {
+        int h = length;
+        h = h * seed + first;
+        h = h * seed + second;
+        h = h * seed + last;
+        return (h ^ (h >>> 7)) & (SIZE - 1);
+    }
+}
@@ -0,0 +1,16 @@
+package com.mips;
+
+// Limits bounds a run by instructions retired, by wall-clock time and by a cancellation handle.
+// It is immutable so the same limits can be given to many interpreters, the interpreter keeps
+// the state of the run. Zero means no limit.
+public final class Limits {
+    final long maxInstructions;
+    final long maxMillis;
+    final Cancellation cancellation;
+
+    public Limits(long maxInstructions, long maxMillis, Cancellation cancellation) {
+        this.maxInstructions = maxInstructions;
+        this.maxMillis = maxMillis;
+        this.cancellation = cancellation;
+    }
+}
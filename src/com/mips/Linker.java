@@ -0,0 +1,272 @@
+package com.mips;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Linker builds one program from many source files. Every file is scanned and parsed on its own on
+// a fork-join pool into a module, whose targets are indices into the module and whose labels are
+// left unresolved. The modules are laid out one after the other, their labels are merged into one
+// symbol table, then every module is copied into the program on the pool, with its targets moved
+// by the index of its first instruction and its labels resolved. Labels are global, a file can
+// branch or jump to a label of another file, while numeric jump addresses count from the first
+// instruction of the file they are in.
+//
+// Errors are collected per file and printed in the order of the files, each naming its file.
+//
+// ParallelParser links the pieces of one large source the same way, as modules that are not files.
+final class Linker {
+    // Module is one parsed file, or one piece of a source.
+    static final class Module {
+        // path is the file of the module, or null for a piece of a source.
+        final Path path;
+        // source and line are the bytes of a piece and the line it starts at, they are null and 1 for a file.
+        final ByteBuffer source;
+        final int line;
+        final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        final Reporter reporter;
+        // lexical holds the scanner errors of a piece alone, scanner reports them to errors and to
+        // lexical. For a file scanner is reporter.
+        final ByteArrayOutputStream lexical = new ByteArrayOutputStream();
+        final Reporter scanner;
+        // marks holds the size of errors when every label of the module was defined, so a label that
+        // another module defined first is reported where the sequential parser reports it.
+        final List<Integer> marks = new ArrayList<>();
+        final Symbols symbols = new Symbols() {
+            @Override
+            void define(Token name, int index, Reporter reporter) {
+                int count = count();
+                super.define(name, index, reporter);
+                if (count() > count)
+                    marks.add(errors.size());
+            }
+        };
+        Program program;
+        // parsed is false if parsing stopped at a syntax error.
+        boolean parsed;
+        // base and end are the indices of the first instruction of the module in the program and of the one after it.
+        int base;
+        int end;
+
+        Module(Path path) {
+            this.path = path;
+            this.source = null;
+            this.line = 1;
+            this.reporter = new Reporter(new PrintStream(errors, true, StandardCharsets.UTF_8),
+                    String.valueOf(path.getFileName()));
+            this.scanner = reporter;
+        }
+
+        Module(ByteBuffer source, int line) {
+            this.path = null;
+            this.source = source;
+            this.line = line;
+            this.reporter = new Reporter(new PrintStream(errors, true, StandardCharsets.UTF_8));
+            OutputStream both = new OutputStream() {
+                @Override
+                public void write(int b) {
+                    errors.write(b);
+                    lexical.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) {
+                    errors.write(bytes, offset, length);
+                    lexical.write(bytes, offset, length);
+                }
+            };
+            this.scanner = new Reporter(new PrintStream(both, true, StandardCharsets.UTF_8));
+        }
+    }
+
+    private Linker() {
+    }
+
+    // link method compiles and links the files into one program. Errors are reported to reporter,
+    // the program must not be run if it has any.
+    static Program link(List<Path> files, Reporter reporter) throws IOException {
+        List<Module> modules = new ArrayList<>(files.size());
+        for (Path file : files) {
+            modules.add(new Module(file));
+        }
+        return linkModules(modules, reporter);
+    }
+
+    // linkModules method compiles and links modules. The modules of files are linked as separate files:
+    // numeric jump addresses are moved with their file and every error is reported. The pieces of
+    // a source are linked as one file: jump addresses stay as they are, and like the sequential
+    // parser, the pieces after the first one that stopped at a syntax error only report scanner errors.
+    static Program linkModules(List<Module> modules, Reporter reporter) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        List<Callable<Void>> parses = new ArrayList<>(modules.size());
+        for (Module module : modules) {
+            parses.add(() -> {
+                parse(module);
+                return null;
+            });
+        }
+        invokeAll(pool, parses);
+        long length = 0;
+        for (Module module : modules) {
+            module.base = (int) length;
+            length += module.program.length;
+            module.end = (int) length;
+        }
+        // a label defined again is an error of the parser, it is reported with the syntax errors.
+        Map<String, Integer> labels = symbols(modules);
+        if (!report(modules, reporter, true))
+            return new Program(new int[0], new int[0], 0);
+        if (length > Integer.MAX_VALUE / Program.WIDTH)
+            throw new IOException("Program is too large.");
+
+        Program program = new Program(new int[(int) length * Program.WIDTH], new int[(int) length], (int) length);
+        List<Callable<Void>> copies = new ArrayList<>(modules.size());
+        for (Module module : modules) {
+            copies.add(() -> {
+                relocate(module, program, labels);
+                return null;
+            });
+        }
+        invokeAll(pool, copies);
+        // the targets of a file are checked if its labels were resolved. Like the sequential parser,
+        // no target of a source is checked once a label of one of its pieces is undefined.
+        boolean resolved = true;
+        for (Module module : modules) {
+            if (module.path == null && module.reporter.hadError)
+                resolved = false;
+        }
+        List<Callable<Void>> checks = new ArrayList<>(modules.size());
+        for (Module module : modules) {
+            if (module.path != null ? !module.reporter.hadError : resolved) {
+                checks.add(() -> {
+                    ControlFlow.verify(program, module.base, module.end, module.reporter);
+                    return null;
+                });
+            }
+        }
+        invokeAll(pool, checks);
+        report(modules, reporter, false);
+        return program;
+    }
+
+    // parse method parses a piece, or memory-maps a file, into its module.
+    private static void parse(Module module) throws IOException {
+        if (module.source != null) {
+            ProgramBuilder builder = new ProgramBuilder(module.source.remaining() / 16);
+            module.parsed = new StreamParser(new ByteScanner(module.source, module.scanner, module.line), builder,
+                    module.reporter, module.symbols).parseModule();
+            module.program = builder.build();
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(module.path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File is too large: " + module.path);
+            MappedByteBuffer source = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ProgramBuilder builder = new ProgramBuilder((int) (size / 16));
+            module.parsed = new StreamParser(new ByteScanner(source, module.scanner), builder, module.reporter,
+                    module.symbols).parseModule();
+            module.program = builder.build();
+        }
+    }
+
+    // symbols method merges the labels of the modules, a label defined in two modules is reported in
+    // the second one, among its other errors at the place it was defined. The pieces after one that
+    // stopped at a syntax error are not parsed by the sequential parser, their labels are left out.
+    private static Map<String, Integer> symbols(List<Module> modules) {
+        Map<String, Integer> labels = new HashMap<>();
+        for (Module module : modules) {
+            byte[] errors = module.errors.toByteArray();
+            module.errors.reset();
+            int written = 0;
+            List<Token> definitions = module.symbols.definitions();
+            for (int i = 0; i < definitions.size(); i++) {
+                Token label = definitions.get(i);
+                int index = module.symbols.lookup(label.lexeme) + module.base;
+                if (labels.putIfAbsent(label.lexeme, index) == null)
+                    continue;
+                int mark = module.marks.get(i);
+                module.errors.write(errors, written, mark - written);
+                written = mark;
+                module.reporter.error(label, module.path != null ? "Label is already defined in another file."
+                        : "Label is already defined.");
+            }
+            module.errors.write(errors, written, errors.length - written);
+            if (module.path == null && !module.parsed)
+                break;
+        }
+        return labels;
+    }
+
+    // relocate method copies a module into the program, moves its targets and resolves its labels.
+    private static void relocate(Module module, Program program, Map<String, Integer> labels) {
+        int base = module.base;
+        int[] code = module.program.code;
+        int length = module.program.length;
+        System.arraycopy(code, 0, program.code, base * Program.WIDTH, length * Program.WIDTH);
+        System.arraycopy(module.program.lines, 0, program.lines, base, length);
+        // the jump addresses of a piece are addresses in the whole source already.
+        boolean jumps = module.path != null;
+        for (int pc = base; pc < base + length; pc++) {
+            int opcode = program.code[pc * Program.WIDTH];
+            if (Opcode.isBranch(opcode) || opcode == Opcode.J && jumps)
+                program.code[pc * Program.WIDTH + 3] += base;
+        }
+        // the module is not needed once it is copied, let it go while the others are copied.
+        module.program = null;
+        module.symbols.resolve(program.code, base, labels, module.reporter);
+    }
+
+    // report method prints the errors of the modules in order, it returns false if there were any.
+    // The sequential parser skips the rest of the source after a syntax error and only scans it,
+    // so the pieces after the first one that stopped at a syntax error only report their scanner errors.
+    private static boolean report(List<Module> modules, Reporter reporter, boolean syntax) {
+        boolean valid = true;
+        boolean stopped = false;
+        for (Module module : modules) {
+            ByteArrayOutputStream errors = stopped ? module.lexical : module.errors;
+            if (errors.size() > 0) {
+                reporter.errors(errors.toString(StandardCharsets.UTF_8));
+                valid = false;
+            }
+            module.errors.reset();
+            if (syntax && module.path == null && !module.parsed)
+                stopped = true;
+        }
+        return valid;
+    }
+
+    // invokeAll method runs the tasks on the pool and waits for all of them, an IOException of a task is rethrown.
+    static void invokeAll(ForkJoinPool pool, List<Callable<Void>> tasks) throws IOException {
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Linking was interrupted.", e);
+        } catch (ExecutionException e) {
+            // the pool wraps the checked exception of a task in a RuntimeException, so the causes are searched.
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException)
+                    throw (IOException) cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.mips;
+
+// LoopAccelerator runs simple counting loops in closed form. A loop qualifies when its body, from the
+// target of a backward branch to the instruction before the branch, only adds a constant to one
+// register i and prints i, and the branch compares i to a register n the body does not write.
+// Then the number of iterations left is computed from i, n and the step, the output is printed in
+// one batch and the loop is left at once. Loops that do not match exactly, or whose counter would
+// overflow before the loop ends, are run as usual. With limits the iterations are counted as if they
+// ran one by one, so a run stops at the same branch and with the same registers as without the loop.
+class LoopAccelerator {
+    // NONE marks the branches that were looked at and do not close a simple loop.
+    private static final Loop NONE = new Loop();
+
+    final Program program;
+    // loops holds what was found for the branch at every pc, null if it was not looked at yet.
+    private final Loop[] loops;
+
+    LoopAccelerator(Program program) {
+        this.program = program;
+        this.loops = new Loop[program.length];
+    }
+
+    // Loop is a simple counting loop: register i grows by step, prints holds for every print of the
+    // body whether it comes after the increment, and the branch keeps looping while i op n holds.
+    private static class Loop {
+        int i;
+        int step;
+        int n;
+        int op;
+        boolean[] prints;
+    }
+
+    // backEdge method is called when the branch at pc jumps back to target. It finishes the loop and
+    // returns the pc after the branch, or returns -1 when the loop has to run as usual.
+    int backEdge(int pc, int target, int[] registers, Interpreter interpreter) {
+        Loop loop = loops[pc];
+        if (loop == null)
+            loop = loops[pc] = analyze(pc, target);
+        if (loop == NONE)
+            return -1;
+        long value = registers[loop.i];
+        long bound = registers[loop.n];
+        long iterations = iterations(loop.op, value, bound, loop.step);
+        if (iterations <= 0)
+            return -1;
+        long last = value + iterations * loop.step;
+        // the loop must end with i = last, the branch then holds for i op n no more.
+        if (last < Integer.MIN_VALUE || last > Integer.MAX_VALUE || Opcode.taken(loop.op, (int) last, (int) bound))
+            return -1;
+        // with limits the loop may only run part of the iterations, it then stops at the branch.
+        long runs = interpreter.loop(pc, target, iterations);
+        print(loop, (int) value, runs, interpreter);
+        registers[loop.i] = (int) (value + runs * loop.step);
+        return runs < iterations ? pc : pc + 1;
+    }
+
+    // iterations method returns how many more times the body runs, the branch was just taken with
+    // i = value. It returns 0 when the loop only ends by overflowing or can not be counted.
+    private static long iterations(int op, long value, long bound, long step) {
+        if (op == Opcode.BEQ)
+            return 1;
+        if (step < 0) {
+            // count down as if counting up with the comparison mirrored.
+            value = -value;
+            bound = -bound;
+            step = -step;
+            op = mirror(op);
+        }
+        switch (op) {
+            case Opcode.BLT:
+                return (bound - value + step - 1) / step;
+            case Opcode.BLE:
+                return (bound - value) / step + 1;
+            case Opcode.BNQ:
+                return bound > value && (bound - value) % step == 0 ? (bound - value) / step : 0;
+            default:
+                return 0;
+        }
+    }
+
+    // print method prints what the body prints in the given number of iterations, i starting at value.
+    private static void print(Loop loop, int value, long iterations, Interpreter interpreter) {
+        boolean[] prints = loop.prints;
+        if (prints.length == 0)
+            return;
+        if (prints.length == 1) {
+            // the common case, a single print of the counter: one series.
+            interpreter.printSeries(prints[0] ? value + loop.step : value, loop.step, iterations);
+            return;
+        }
+        for (long k = 0; k < iterations; k++) {
+            int before = (int) (value + k * loop.step);
+            for (boolean after : prints) {
+                interpreter.print(after ? before + loop.step : before);
+            }
+        }
+    }
+
+    // analyze method returns the loop closed by the branch at pc, or NONE if it is not a simple loop.
+    private Loop analyze(int pc, int target) {
+        int[] code = program.code;
+        int branch = code[pc * Program.WIDTH];
+        if (!Opcode.isBranch(branch) || target >= pc)
+            return NONE;
+        int i = -1;
+        int step = 0;
+        int printed = 0;
+        for (int p = target; p < pc; p++) {
+            int opcode = code[p * Program.WIDTH];
+            int a = code[p * Program.WIDTH + 1];
+            int b = code[p * Program.WIDTH + 2];
+            int c = code[p * Program.WIDTH + 3];
+            if (opcode == Opcode.ADDI || opcode == Opcode.SUBI || Opcode.isFused(opcode)) {
+                if (i >= 0 || a != b)
+                    return NONE;
+                i = a;
+                step = opcode == Opcode.SUBI ? -c : c;
+            } else if (opcode == Opcode.PRINT) {
+                printed++;
+            } else if (opcode != Opcode.NOP) {
+                return NONE;
+            }
+        }
+        if (i < 0 || step == 0 || step == Integer.MIN_VALUE)
+            return NONE;
+        Loop loop = new Loop();
+        loop.i = i;
+        loop.step = step;
+        loop.prints = new boolean[printed];
+        boolean incremented = false;
+        printed = 0;
+        for (int p = target; p < pc; p++) {
+            int opcode = code[p * Program.WIDTH];
+            if (opcode == Opcode.PRINT) {
+                // only the counter may be printed, anything else could change while we skip.
+                if (code[p * Program.WIDTH + 1] != i)
+                    return NONE;
+                loop.prints[printed++] = incremented;
+            } else if (opcode != Opcode.NOP) {
+                incremented = true;
+            }
+        }
+        int a = code[pc * Program.WIDTH + 1];
+        int b = code[pc * Program.WIDTH + 2];
+        // the branch holds when reg[b] op reg[a], turn it around when the counter is a.
+        if (b == i && a != i) {
+            loop.n = a;
+            loop.op = branch;
+        } else if (a == i && b != i) {
+            loop.n = b;
+            loop.op = mirror(branch);
+        } else {
+            return NONE;
+        }
+        return loop;
+    }
+
+    // mirror method returns the comparison with its operands swapped.
+    private static int mirror(int op) {
+        switch (op) {
+            case Opcode.BGT:
+                return Opcode.BLT;
+            case Opcode.BGE:
+                return Opcode.BLE;
+            case Opcode.BLT:
+                return Opcode.BGT;
+            case Opcode.BLE:
+                return Opcode.BGE;
+            default:
+                return op;
+        }
+    }
+}
@@ -11,65 +11,348 @@ import java.nio.charset.Charset;
 // file.Files is a utility class for working with files.
 import java.nio.file.Files;
 // file.Paths is a utility class for working with file paths.
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Main {
-    // hadErrors is a static variable because it is shared by all instances of the
-    // Main class.
-    static boolean hadError = false;
-    static boolean hadRuntimeError = false;
+    // reporter is a static variable because it is shared by all instances of the
+    // Main class, it prints the errors of the program being run to System.err.
+    static final Reporter reporter = new Reporter(System.err);
     // interpreter is a static variable because it is shared by all instances of the
-    private static final Interpreter interpreter = new Interpreter();
+    // Main class, it is created once the options are read.
+    private static Interpreter interpreter;
+    // output is where print writes, it can be a file chosen with --output=path
+    private static Output output = Output.standard();
+    // cache keeps compiled programs on disk, it is enabled with --cache or --cache=directory
+    private static ProgramCache cache;
+    // batch is a directory or a manifest of programs to run in batch mode, set with --batch=path
+    private static Path batch;
+    private static Path batchOutput;
+    private static int jobs = Runtime.getRuntime().availableProcessors();
+    // profile turns on profiling with --profile or --profile=path, the profile is written to profilePath
+    private static boolean profile = false;
+    private static Path profilePath;
+    // maxInstructions and timeout bound every run, set with --max-instructions=n and --timeout=ms
+    private static long maxInstructions = 0;
+    private static long timeout = 0;
+    // memorySize and memoryImage set up the data memory, with --memory=bytes and --memory-image=path
+    private static int memorySize = Memory.DEFAULT_SIZE;
+    private static Path memoryImage;
+    // snapshot is where the state is written when the run stops, resume is a snapshot to continue from
+    private static Path snapshot;
+    private static Path resume;
+    // cfg prints the basic blocks of the script instead of running it, set with --cfg
+    private static boolean cfg = false;
+    // optimize runs the Optimizer over the program before running it, set with --optimize
+    private static boolean optimize = false;
+    // tracePath is where the trace of the run is written, set with --trace=path
+    private static Path tracePath;
+    // pipeline times the run on a 5-stage pipeline, set with --pipeline or --pipeline=no-forwarding
+    private static boolean pipeline = false;
+    private static boolean forwarding = true;
+    // predictors are the branch predictors the run is modeled with, set with --branches[=names]
+    private static List<BranchPredictor> predictors;
+    // assemble is where the script is written as a binary image instead of running it, set with --assemble=path
+    private static Path assemble;
+
+    // engine is the engine used to run programs, it can be chosen with --engine=switch|visitor|tiered
+    private static Engine engine = Engine.SWITCH;
 
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            // if the user passes in more than one argument, print an error message and
-            // exit.
-            System.out.println("Usage: mips [script]");
-            System.exit(64);
-        } else if (args.length == 1) {
-            // if the user passes in one argument, run the file.
-            // if the file ends with .mips, run it.
-            if (args[0].endsWith(".mips")) {
-                runFile(args[0]);
+        List<String> scripts = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--engine=")) {
+                // the engine option selects how instructions are executed.
+                String name = arg.substring("--engine=".length());
+                if (name.equals("switch")) {
+                    engine = Engine.SWITCH;
+                } else if (name.equals("visitor")) {
+                    engine = Engine.VISITOR;
+                } else if (name.equals("tiered")) {
+                    engine = Engine.TIERED;
+                } else {
+                    usage();
+                }
+            } else if (arg.equals("--cache")) {
+                // the cache option skips scanning and parsing of programs compiled before.
+                cache = new ProgramCache(ProgramCache.defaultDirectory());
+            } else if (arg.startsWith("--cache=")) {
+                cache = new ProgramCache(Paths.get(arg.substring("--cache=".length())));
+            } else if (arg.startsWith("--batch=")) {
+                // the batch option runs many programs in parallel.
+                batch = Paths.get(arg.substring("--batch=".length()));
+            } else if (arg.startsWith("--batch-output=")) {
+                // the output and errors of every program are written to this directory.
+                batchOutput = Paths.get(arg.substring("--batch-output=".length()));
+            } else if (arg.startsWith("--jobs=")) {
+                jobs = Integer.parseInt(arg.substring("--jobs=".length()));
+            } else if (arg.equals("--profile")) {
+                // the profile option counts executions and reports the hot spots at exit.
+                profile = true;
+            } else if (arg.startsWith("--profile=")) {
+                profile = true;
+                profilePath = Paths.get(arg.substring("--profile=".length()));
+            } else if (arg.startsWith("--max-instructions=")) {
+                // the limit options stop programs that run for too long.
+                maxInstructions = Long.parseLong(arg.substring("--max-instructions=".length()));
+            } else if (arg.startsWith("--timeout=")) {
+                timeout = Long.parseLong(arg.substring("--timeout=".length()));
+            } else if (arg.startsWith("--memory=")) {
+                // the memory options size the data memory and load an image into it.
+                memorySize = Integer.parseInt(arg.substring("--memory=".length()));
+            } else if (arg.startsWith("--memory-image=")) {
+                memoryImage = Paths.get(arg.substring("--memory-image=".length()));
+            } else if (arg.startsWith("--snapshot=")) {
+                // the snapshot options checkpoint a run and continue it later.
+                snapshot = Paths.get(arg.substring("--snapshot=".length()));
+            } else if (arg.startsWith("--resume=")) {
+                resume = Paths.get(arg.substring("--resume=".length()));
+            } else if (arg.startsWith("--trace=")) {
+                // the trace option records every retired instruction, read it with TraceReader.
+                tracePath = Paths.get(arg.substring("--trace=".length()));
+            } else if (arg.equals("--pipeline")) {
+                // the pipeline option reports the cycles the run would take on a 5-stage pipeline.
+                pipeline = true;
+            } else if (arg.equals("--pipeline=no-forwarding")) {
+                pipeline = true;
+                forwarding = false;
+            } else if (arg.equals("--branches")) {
+                // the branches option reports how well every predictor guesses the conditional branches.
+                predictors = predictors("static,1bit,2bit,gshare");
+            } else if (arg.startsWith("--branches=")) {
+                predictors = predictors(arg.substring("--branches=".length()));
+            } else if (arg.startsWith("--assemble=")) {
+                // the assemble option writes the machine words of the script, run them as script.bin.
+                assemble = Paths.get(arg.substring("--assemble=".length()));
+            } else if (arg.equals("--optimize")) {
+                // the optimize option rewrites the program into a faster one with the same output.
+                optimize = true;
+            } else if (arg.equals("--cfg")) {
+                // the cfg option shows the control-flow graph of the script.
+                cfg = true;
+            } else if (arg.startsWith("--output=")) {
+                // the output option sends printed values to a file.
+                output = Output.toFile(Paths.get(arg.substring("--output=".length())));
+            } else if (arg.endsWith(".mips") || arg.endsWith(".bin")) {
+                // the script must end with .mips, or .bin for an assembled image. Many .mips
+                // scripts are linked into one program.
+                scripts.add(arg);
             } else {
-                // if the file does not end with .mips, print an error message and exit.
-                System.out.println("Usage: mips [script]");
-                System.exit(64);
+                // a file that does not end with .mips is an error.
+                usage();
             }
+        }
+        // an assembled image can not be linked with other scripts.
+        if (scripts.size() > 1 && scripts.stream().anyMatch(script -> script.endsWith(".bin")))
+            usage();
+        // the visitor runs one script as it was written and can not count, observe, stop or resume it,
+        // so it is not silently replaced by the switch engine when an option needs one of these.
+        if (engine == Engine.VISITOR && (scripts.size() > 1 || profile || limits() != null || snapshot != null
+                || resume != null || optimize || tracePath != null || pipeline || predictors != null
+                || scripts.stream().anyMatch(script -> script.endsWith(".bin")))) {
+            System.out.println("--engine=visitor can not be used with several scripts, an image, --profile,"
+                    + " --max-instructions, --timeout, --snapshot, --resume, --optimize, --trace, --pipeline"
+                    + " or --branches.");
+            usage();
+        }
+        if (batch != null) {
+            // batch mode does not take a script.
+            if (!scripts.isEmpty())
+                usage();
+            runBatch();
+            return;
+        }
+        interpreter = new Interpreter(output);
+        interpreter.setLimits(limits());
+        if (memoryImage != null)
+            interpreter.setMemory(Memory.map(memoryImage, memorySize));
+        else if (memorySize != Memory.DEFAULT_SIZE)
+            interpreter.setMemory(new Memory(memorySize));
+        if (!scripts.isEmpty()) {
+            // if the user passes in scripts, run them.
+            runFile(scripts);
+            output.close();
         } else {
-            // if the user passes in no arguments, run the REPL.
+            // if the user passes in no script, run the REPL.
             runPrompt();
         }
     }
 
-    private static void runFile(String path) throws IOException {
+    // usage prints how to call the simulator and exits.
+    private static void usage() {
+        System.out.println("Usage: mips [--engine=switch|visitor|tiered] [--output=path] [--cache[=directory]]"
+                + " [--profile[=path]] [--max-instructions=n] [--timeout=ms] [--memory=bytes]"
+                + " [--memory-image=path] [--snapshot=path] [--resume=path] [--cfg] [--optimize] [--trace=path]"
+                + " [--pipeline[=no-forwarding]] [--branches[=static,1bit,2bit,gshare[:bits]]]"
+                + " [--assemble=path] [script...]");
+        System.out.println("       mips [--engine=switch|visitor|tiered] --batch=directory|manifest"
+                + " [--batch-output=directory] [--jobs=n] [--max-instructions=n] [--timeout=ms]");
+        System.exit(64);
+    }
+
+    // runFile runs a script, or links many scripts into one program and runs it.
+    private static void runFile(List<String> scripts) throws IOException {
+        String path = scripts.get(0);
+        if (scripts.size() > 1 || engine != Engine.VISITOR || profile || limits() != null || snapshot != null || resume != null || cfg
+                || optimize || tracePath != null || pipeline || predictors != null || assemble != null
+                || path.endsWith(".bin")) {
+            // scan, parse and decode the file in one pass without keeping tokens around,
+            // or load it from the cache, or decode the words of an image.
+            Program program = scripts.size() > 1 ? link(scripts)
+                    : path.endsWith(".bin") ? image(Paths.get(path))
+                    : cache != null ? cache.compile(Paths.get(path), reporter)
+                    : StreamParser.parse(Paths.get(path), reporter);
+            // Indicate an error in the exit code.
+            if (reporter.hadError)
+                System.exit(65);
+            if (assemble != null) {
+                Assembler.assemble(program).write(assemble);
+                return;
+            }
+            if (cfg) {
+                ControlFlow.of(program).print(System.out);
+                return;
+            }
+            Profile counters = profile ? new Profile(program) : null;
+            interpreter.setProfile(counters);
+            Trace trace = tracePath != null ? Trace.open(program, tracePath) : null;
+            interpreter.setTrace(trace);
+            Pipeline timing = pipeline ? new Pipeline(program, forwarding) : null;
+            interpreter.setPipeline(timing);
+            BranchModel branches = predictors != null ? new BranchModel(program, predictors) : null;
+            interpreter.setBranchModel(branches);
+            if (resume != null) {
+                try {
+                    Snapshot.read(resume).restore(interpreter, program);
+                } catch (IOException | IllegalArgumentException e) {
+                    // a snapshot of another program or version can not be resumed.
+                    System.err.println(e.getMessage());
+                    System.exit(65);
+                }
+                interpreter.resume(optimized(program, false), engine == Engine.TIERED);
+            } else {
+                interpreter.execute(optimized(program, true), engine == Engine.TIERED);
+            }
+            if (trace != null)
+                trace.close();
+            // snapshots are taken of the program as it was written, they can be resumed without --optimize.
+            if (snapshot != null)
+                Snapshot.write(interpreter, program, snapshot);
+            if (counters != null) {
+                // flush the printed values so the report comes after them.
+                output.flush();
+                counters.report(System.err, 10);
+                counters.write(profilePath != null ? profilePath : Paths.get(path + ".profile.csv"));
+            }
+            if (timing != null) {
+                output.flush();
+                timing.report(System.err);
+            }
+            if (branches != null) {
+                output.flush();
+                branches.report(System.err);
+            }
+            return;
+        }
         // read the file into a byte array.
         byte[] bytes = Files.readAllBytes(Paths.get(path));
         // convert the byte array to a string and run it.
         run(new String(bytes, Charset.defaultCharset()));
         // Indicate an error in the exit code.
-        if (hadError)
+        if (reporter.hadError)
             // if hadError is true, exit with code 65.
             System.exit(65);
 
     }
 
+    // link compiles the scripts in parallel and links them into one program.
+    private static Program link(List<String> scripts) throws IOException {
+        List<Path> paths = new ArrayList<>(scripts.size());
+        for (String script : scripts) {
+            paths.add(Paths.get(script));
+        }
+        return Linker.link(paths, reporter);
+    }
+
+    // image reads and decodes an image file and checks its targets, a bad image ends the run with 65.
+    private static Program image(Path path) {
+        try {
+            Program program = Image.read(path).program();
+            ControlFlow.verify(program, reporter);
+            return program;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(65);
+            return null;
+        }
+    }
+
+    // runBatch runs every program of the batch and prints a line per program and the totals.
+    private static void runBatch() throws IOException {
+        List<Path> programs = BatchRunner.programs(batch);
+        long start = System.nanoTime();
+        List<BatchRunner.Result> results = new BatchRunner(engine, jobs, limits()).run(programs);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int failed = 0;
+        for (BatchRunner.Result result : results) {
+            System.out.println(result);
+            if (result.status != BatchRunner.Status.OK)
+                failed++;
+            if (batchOutput != null)
+                result.write(batchOutput);
+        }
+        System.out.printf("%d programs, %d failed, %.3f s, %.1f programs/s%n",
+                results.size(), failed, seconds, results.size() / seconds);
+        if (failed > 0)
+            System.exit(1);
+    }
+
+    // optimized returns the optimized program when --optimize is given. Profiles, traces, the
+    // pipeline and the branch model see the instructions as they were written, so these runs are not optimized.
+    private static Program optimized(Program program, boolean zeroEntry) {
+        if (!optimize || profile || tracePath != null || pipeline || predictors != null)
+            return program;
+        return Optimizer.optimize(program, zeroEntry);
+    }
+
+    // predictors returns the predictors named in a comma separated list, an unknown name is a usage error.
+    private static List<BranchPredictor> predictors(String names) {
+        List<BranchPredictor> predictors = new ArrayList<>();
+        try {
+            for (String name : names.split(",")) {
+                predictors.add(BranchPredictor.of(name));
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            usage();
+        }
+        return predictors;
+    }
+
+    // limits returns the limits given on the command line, or null if there are none.
+    private static Limits limits() {
+        if (maxInstructions == 0 && timeout == 0)
+            return null;
+        return new Limits(maxInstructions, timeout, null);
+    }
+
     private static void runPrompt() throws IOException {
         // create a new InputStreamReader that reads from System.in.
         InputStreamReader input = new InputStreamReader(System.in);
         // create a new BufferedReader that reads from the InputStreamReader.
         BufferedReader reader = new BufferedReader(input);
-        // create a new StringBuilder that will hold the user's input.
+        // every line is added to one program, it runs with the switch engine or the tiered one.
+        Repl repl = new Repl(interpreter, reporter, engine == Engine.TIERED);
         for (;;) {
             // print a prompt.
             System.out.print("> ");
-            // read a line from the user.
-            run(reader.readLine());
-            // reset hadError to false.
-            hadError = false;
-            hadRuntimeError = false;
+            // read a line from the user, the session ends at the end of the input.
+            String line = reader.readLine();
+            if (line == null)
+                break;
+            repl.line(line);
         }
     }
 
@@ -83,41 +366,21 @@ public class Main {
         // create a new Expr that will hold the AST.
         List<Inst> instructions = parser.parse();
         // // stop if there was a syntax error.
-        if (hadError)
+        if (reporter.hadError)
             System.exit(65);
-        if (hadRuntimeError)
+        if (reporter.hadRuntimeError)
             System.exit(70);
+        // decode the instructions once, check the branch targets and run the decoded program.
+        Program program = new Decoder().decode(instructions);
+        if (!ControlFlow.verify(program, reporter))
+            System.exit(65);
 
-        interpreter.interpret(instructions);
-        // System.out.println(instructions.size());
-
-    }
-    // parser error.
-    static void error(Token token, String message) {
-        if (token.type == TokenType.EOF) {
-            report(token.line, " at end", message);
+        if (engine == Engine.VISITOR) {
+            interpreter.interpret(instructions);
         } else {
-            report(token.line, " at '" + token.lexeme + "'", message);
+            interpreter.execute(program, engine == Engine.TIERED);
         }
-    }
-
-    // scanner error.
-    static void error(int line, String message) {
-        // print the error message.
-        report(line, "", message);
-    }
-
-    // report is a helper function that prints an error message.
-    private static void report(int line, String where, String message) {
-        System.err.println(
-                "[line " + line + "] Error" + where + ": " + message);
-        hadError = true;
-    }
+        // System.out.println(instructions.size());
 
-    // runtime error.
-    static void runtimeError(RuntimeError error) {
-        System.err.println(error.getMessage() +
-                "\n[line " + error.token.line + "]");
-        hadRuntimeError = true;
     }
 }
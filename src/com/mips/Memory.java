@@ -0,0 +1,115 @@
+package com.mips;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Memory is the data memory of the simulator, it is addressed by bytes and read and written by words.
+// The bytes are kept off the heap in a direct buffer, so hundreds of megabytes of memory are not
+// scanned by the garbage collector. Words are big-endian like on MIPS, addresses must be multiples of 4.
+public final class Memory {
+    // DEFAULT_SIZE is the size of the memory when none is given, 1 MiB
+    public static final int DEFAULT_SIZE = 1 << 20;
+    private final ByteBuffer bytes;
+    // limit is the last address a word can be read from
+    private final int limit;
+
+    // Memory creates a memory of size bytes, every byte starts at 0
+    public Memory(int size) {
+        this(ByteBuffer.allocateDirect(size));
+    }
+
+    private Memory(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.limit = bytes.capacity() - 4;
+    }
+
+    // map method creates a memory holding the image file at address 0, followed by zeros up to size bytes.
+    // When the image is at least size bytes it is mapped privately: pages are read when they are first
+    // touched and stores go to private copies, the file is never written. An image that can not be
+    // opened for writing is copied into the memory instead.
+    public static Memory map(Path image, int size) throws IOException {
+        long length = Files.size(image);
+        if (length > Integer.MAX_VALUE)
+            throw new IOException("Memory image is larger than 2 GiB: " + image);
+        if (length >= size) {
+            // a private mapping needs a channel open for writing, even though nothing is written back
+            try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Memory(channel.map(FileChannel.MapMode.PRIVATE, 0, length));
+            } catch (FileSystemException e) {
+                // a read-only file or file system, the image is copied below.
+            }
+        }
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            ByteBuffer bytes = ByteBuffer.allocateDirect((int) Math.max(size, length));
+            bytes.put(mapped).clear();
+            return new Memory(bytes);
+        }
+    }
+
+    // copyOf method creates a memory holding a copy of the bytes, which are not changed
+    static Memory copyOf(ByteBuffer source) {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(source.remaining());
+        bytes.put(source.duplicate()).clear();
+        return new Memory(bytes);
+    }
+
+    // bytes method returns a view of the whole memory, snapshots write it without copying it
+    ByteBuffer bytes() {
+        return bytes.duplicate().clear();
+    }
+
+    // size method returns the size of the memory in bytes
+    public int size() {
+        return bytes.capacity();
+    }
+
+    // fault method returns why a word can not be accessed at address, or null if it can
+    String fault(int address) {
+        if ((address & 3) != 0)
+            return "Unaligned address " + address + ".";
+        if (address < 0 || address > limit)
+            return "Address " + address + " is out of memory.";
+        return null;
+    }
+
+    // valid method tells whether a word can be accessed at address, it is the fast check of the engines
+    boolean valid(int address) {
+        return (address & 3) == 0 && address >= 0 && address <= limit;
+    }
+
+    // load method reads the word at address, it throws IllegalArgumentException if the address is
+    // unaligned or out of memory
+    public int load(int address) {
+        check(address);
+        return bytes.getInt(address);
+    }
+
+    // store method writes the word at address, it throws IllegalArgumentException if the address is
+    // unaligned or out of memory
+    public void store(int address, int value) {
+        check(address);
+        bytes.putInt(address, value);
+    }
+
+    // get method reads the word at address without checking it, the engines check valid first
+    int get(int address) {
+        return bytes.getInt(address);
+    }
+
+    // put method writes the word at address without checking it, the engines check valid first
+    void put(int address, int value) {
+        bytes.putInt(address, value);
+    }
+
+    private void check(int address) {
+        if (!valid(address))
+            throw new IllegalArgumentException(fault(address));
+    }
+}
@@ -0,0 +1,116 @@
+package com.mips;
+
+// Opcode holds the dense numbers used for instructions in a decoded Program.
+final class Opcode {
+    // R-type, reg[a] = reg[b] op reg[c]
+    static final int ADD = 0;
+    static final int SUB = 1;
+    static final int MUL = 2;
+    static final int DIV = 3;
+    static final int AND = 4;
+    static final int OR = 5;
+    static final int XOR = 6;
+    // I-type, reg[a] = reg[b] op c
+    static final int ADDI = 7;
+    static final int SUBI = 8;
+    static final int MULI = 9;
+    static final int DIVI = 10;
+    static final int ANDI = 11;
+    static final int ORI = 12;
+    static final int XORI = 13;
+    static final int SLL = 14;
+    static final int SRL = 15;
+    static final int LW = 16;
+    static final int SW = 17;
+    static final int SWAP = 18;
+    // branches, jump to c when reg[b] compared to reg[a] holds
+    static final int BEQ = 19;
+    static final int BNQ = 20;
+    static final int BGT = 21;
+    static final int BGE = 22;
+    static final int BLT = 23;
+    static final int BLE = 24;
+    // J-type, jump to c
+    static final int J = 25;
+    // print reg[a]
+    static final int PRINT = 26;
+    // the opcodes below are only made by the Optimizer, never by the parsers.
+    // NOP does nothing, it takes the place of a removed instruction so targets do not move.
+    // c is the number of NOPs in a row from this one, the engine skips them at once
+    static final int NOP = 27;
+    // LI, reg[a] = c
+    static final int LI = 28;
+    // MOVE, reg[a] = reg[b]
+    static final int MOVE = 29;
+    // SHLI, reg[a] = reg[b] << c
+    static final int SHLI = 30;
+    // ADDI_BEQ to ADDI_BLE run an addi and the branch of the next instruction in one dispatch
+    static final int ADDI_BEQ = 31;
+    static final int ADDI_BNQ = 32;
+    static final int ADDI_BGT = 33;
+    static final int ADDI_BGE = 34;
+    static final int ADDI_BLT = 35;
+    static final int ADDI_BLE = 36;
+    // number of opcodes
+    static final int COUNT = 37;
+
+    // TYPES maps an opcode back to the token type it was decoded from.
+    private static final TokenType[] TYPES = {
+            TokenType.ADD, TokenType.SUB, TokenType.MUL, TokenType.DIV, TokenType.AND, TokenType.OR, TokenType.XOR,
+            TokenType.ADDI, TokenType.SUBI, TokenType.MULI, TokenType.DIVI, TokenType.ANDI, TokenType.ORI,
+            TokenType.XORI, TokenType.SLL, TokenType.SRL, TokenType.LW, TokenType.SW, TokenType.SWAP,
+            TokenType.BEQ, TokenType.BNQ, TokenType.BGT, TokenType.BGE, TokenType.BLT, TokenType.BLE,
+            TokenType.J, TokenType.PRINT,
+            // optimized instructions never raise errors, they are named after what they replace
+            TokenType.ADDI, TokenType.ADDI, TokenType.ADDI, TokenType.MULI,
+            TokenType.ADDI, TokenType.ADDI, TokenType.ADDI, TokenType.ADDI, TokenType.ADDI, TokenType.ADDI
+    };
+
+    private Opcode() {
+    }
+
+    // of method returns the opcode for a token type.
+    static int of(TokenType type) {
+        for (int opcode = 0; opcode < COUNT; opcode++) {
+            if (TYPES[opcode] == type)
+                return opcode;
+        }
+        throw new IllegalArgumentException("Not an instruction: " + type);
+    }
+
+    // type method returns the token type of an opcode.
+    static TokenType type(int opcode) {
+        return TYPES[opcode];
+    }
+
+    // isBranch method returns true for the conditional branches.
+    static boolean isBranch(int opcode) {
+        return opcode >= BEQ && opcode <= BLE;
+    }
+
+    // isFused method returns true for an addi fused with the branch after it.
+    static boolean isFused(int opcode) {
+        return opcode >= ADDI_BEQ && opcode <= ADDI_BLE;
+    }
+
+    // taken method returns true if the branch opcode is taken, that is if b compared to a holds.
+    // b and a are the values of reg[b] and reg[a], like the engines compare them.
+    static boolean taken(int opcode, int b, int a) {
+        switch (opcode) {
+            case BEQ:
+                return b == a;
+            case BNQ:
+                return b != a;
+            case BGT:
+                return b > a;
+            case BGE:
+                return b >= a;
+            case BLT:
+                return b < a;
+            case BLE:
+                return b <= a;
+            default:
+                throw new IllegalArgumentException("Not a branch: " + opcode);
+        }
+    }
+}
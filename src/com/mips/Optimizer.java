@@ -0,0 +1,297 @@
+package com.mips;
+
+import java.util.Arrays;
+
+// Optimizer rewrites a verified program into a faster one that prints the same values and raises
+// the same runtime errors. Every instruction keeps its index, removed ones become NOP, so branch
+// targets, lines and instruction counts do not change. Each basic block is optimized on its own:
+//
+//   - constant propagation: registers with a known value are folded, an instruction whose operands
+//     are all known becomes LI, and a branch whose operands are known becomes J or NOP.
+//   - strength reduction: addi 0, muli 1 and the like become MOVE, muli by a power of two becomes SHLI.
+//   - consecutive addi on the same register are merged into one.
+//   - dead-write elimination: a write that is overwritten in the block before it is read is removed.
+//   - fusion: an addi followed by the branch ending its block becomes one superinstruction.
+//
+// Instructions that can fail (div, divi and srl by zero, lw, sw) are never removed nor folded away.
+final class Optimizer {
+    private static final int W = Program.WIDTH;
+
+    private final Program program;
+    private final int[] code;
+    // known and values hold the registers whose value is known at the current instruction.
+    private final boolean[] known = new boolean[Environment.REGISTER_COUNT];
+    private final int[] values = new int[Environment.REGISTER_COUNT];
+
+    private Optimizer(Program program) {
+        this.program = program;
+        this.code = Arrays.copyOf(program.code, program.length * W);
+    }
+
+    // optimize method returns the optimized copy of a verified program. When zeroEntry is true the
+    // program is known to start with every register at 0, which is not the case when it is resumed.
+    static Program optimize(Program program, boolean zeroEntry) {
+        return new Optimizer(program).run(zeroEntry);
+    }
+
+    private Program run(boolean zeroEntry) {
+        ControlFlow flow = ControlFlow.of(program);
+        // registers are only known to be 0 at the first instruction if nothing jumps back to it.
+        boolean entry = zeroEntry && !isTarget(0);
+        for (int block = 0; block < flow.count(); block++) {
+            int start = flow.start(block);
+            int end = flow.end(block);
+            Arrays.fill(known, block == 0 && entry);
+            Arrays.fill(values, 0);
+            for (int pc = start; pc <= end; pc++) {
+                fold(pc);
+            }
+            merge(start, end);
+            removeDeadWrites(start, end);
+            fuse(start, end);
+        }
+        skipNops();
+        return new Program(code, program.lines, program.length);
+    }
+
+    // isTarget method returns true if a branch or jump goes to pc.
+    private boolean isTarget(int pc) {
+        for (int i = 0; i < program.length; i++) {
+            int opcode = code[i * W];
+            if ((Opcode.isBranch(opcode) || opcode == Opcode.J) && code[i * W + 3] == pc)
+                return true;
+        }
+        return false;
+    }
+
+    // fold method propagates the known registers through the instruction at pc and simplifies it.
+    private void fold(int pc) {
+        int i = pc * W;
+        int opcode = code[i];
+        int a = code[i + 1];
+        int b = code[i + 2];
+        int c = code[i + 3];
+        if (opcode <= Opcode.XOR) {
+            if (known[b] && known[c] && !(opcode == Opcode.DIV && values[c] == 0)) {
+                set(pc, Opcode.LI, a, 0, evaluate(opcode, values[b], values[c]));
+            } else if (known[c] && !(opcode == Opcode.DIV && values[c] == 0)) {
+                // the second operand is known, use the immediate form and simplify it.
+                set(pc, immediateOf(opcode), a, b, values[c]);
+                simplify(pc);
+            } else {
+                known[a] = false;
+            }
+        } else if (opcode <= Opcode.SRL && opcode != Opcode.LW && opcode != Opcode.SW) {
+            boolean fails = (opcode == Opcode.DIVI || opcode == Opcode.SRL) && c == 0;
+            if (known[b] && !fails) {
+                set(pc, Opcode.LI, a, 0, evaluate(opcode, values[b], c));
+            } else {
+                simplify(pc);
+            }
+        } else if (opcode == Opcode.LW) {
+            known[a] = false;
+        } else if (opcode == Opcode.SWAP) {
+            boolean knownA = known[a];
+            int valueA = values[a];
+            known[a] = known[b];
+            values[a] = values[b];
+            known[b] = knownA;
+            values[b] = valueA;
+        } else if (Opcode.isBranch(opcode) && known[a] && known[b]) {
+            if (Opcode.taken(opcode, values[b], values[a]))
+                set(pc, Opcode.J, 0, 0, c);
+            else
+                set(pc, Opcode.NOP, 0, 0, 0);
+        }
+    }
+
+    // simplify method rewrites the immediate instruction at pc into a cheaper one when it can,
+    // its operand is not known. It also updates what is known about the register written.
+    private void simplify(int pc) {
+        int i = pc * W;
+        int opcode = code[i];
+        int a = code[i + 1];
+        int b = code[i + 2];
+        int c = code[i + 3];
+        if (opcode == Opcode.SUBI) {
+            // x - c and x + -c are the same ints, even for the smallest int.
+            opcode = Opcode.ADDI;
+            c = -c;
+            set(pc, opcode, a, b, c);
+        }
+        if ((opcode == Opcode.ADDI || opcode == Opcode.ORI || opcode == Opcode.XORI) && c == 0
+                || (opcode == Opcode.MULI || opcode == Opcode.DIVI) && c == 1) {
+            move(pc, a, b);
+        } else if ((opcode == Opcode.MULI || opcode == Opcode.ANDI || opcode == Opcode.SLL) && c == 0) {
+            set(pc, Opcode.LI, a, 0, 0);
+        } else if (opcode == Opcode.MULI && c > 0 && Integer.bitCount(c) == 1) {
+            set(pc, Opcode.SHLI, a, b, Integer.numberOfTrailingZeros(c));
+            known[a] = false;
+        } else if (opcode == Opcode.SLL && c > 0 && c <= 1 << 30 && Integer.bitCount(c) == 1) {
+            // sll multiplies by c and by 2
+            set(pc, Opcode.SHLI, a, b, Integer.numberOfTrailingZeros(c) + 1);
+            known[a] = false;
+        } else {
+            known[a] = false;
+        }
+    }
+
+    // move method makes the instruction at pc copy register b to a, or a NOP when they are the same.
+    private void move(int pc, int a, int b) {
+        if (a == b) {
+            set(pc, Opcode.NOP, 0, 0, 0);
+            return;
+        }
+        set(pc, Opcode.MOVE, a, b, 0);
+        known[a] = known[b];
+        values[a] = values[b];
+    }
+
+    // set method replaces the instruction at pc, the register written by LI becomes known.
+    private void set(int pc, int opcode, int a, int b, int c) {
+        int i = pc * W;
+        code[i] = opcode;
+        code[i + 1] = a;
+        code[i + 2] = b;
+        code[i + 3] = c;
+        if (opcode == Opcode.LI) {
+            known[a] = true;
+            values[a] = c;
+        }
+    }
+
+    // merge method merges an addi into the next instruction when it is an addi of the register it wrote.
+    private void merge(int start, int end) {
+        for (int pc = start; pc < end; pc++) {
+            int i = pc * W;
+            int j = i + W;
+            if (code[i] != Opcode.ADDI || code[j] != Opcode.ADDI || code[j + 1] != code[i + 1]
+                    || code[j + 2] != code[i + 1])
+                continue;
+            int a = code[i + 1];
+            int b = code[i + 2];
+            int c = code[i + 3] + code[j + 3];
+            set(pc, Opcode.NOP, 0, 0, 0);
+            if (c == 0 && a == b)
+                set(pc + 1, Opcode.NOP, 0, 0, 0);
+            else if (c == 0)
+                set(pc + 1, Opcode.MOVE, a, b, 0);
+            else
+                set(pc + 1, Opcode.ADDI, a, b, c);
+        }
+    }
+
+    // removeDeadWrites method removes the writes that are overwritten before they are read. Every
+    // register is live at the end of the block since the next blocks may read it.
+    private void removeDeadWrites(int start, int end) {
+        boolean[] live = new boolean[Environment.REGISTER_COUNT];
+        Arrays.fill(live, true);
+        for (int pc = end; pc >= start; pc--) {
+            int i = pc * W;
+            int opcode = code[i];
+            int a = code[i + 1];
+            int b = code[i + 2];
+            int c = code[i + 3];
+            if (opcode <= Opcode.XOR) {
+                if (!live[a] && opcode != Opcode.DIV) {
+                    set(pc, Opcode.NOP, 0, 0, 0);
+                    continue;
+                }
+                live[a] = false;
+                live[b] = true;
+                live[c] = true;
+            } else if (opcode <= Opcode.SRL && opcode != Opcode.LW && opcode != Opcode.SW
+                    || opcode == Opcode.MOVE || opcode == Opcode.SHLI) {
+                boolean fails = (opcode == Opcode.DIVI || opcode == Opcode.SRL) && c == 0;
+                if (!live[a] && !fails) {
+                    set(pc, Opcode.NOP, 0, 0, 0);
+                    continue;
+                }
+                live[a] = false;
+                live[b] = true;
+            } else if (opcode == Opcode.LI) {
+                if (!live[a])
+                    set(pc, Opcode.NOP, 0, 0, 0);
+                live[a] = false;
+            } else if (opcode == Opcode.LW) {
+                live[a] = false;
+                live[b] = true;
+            } else if (opcode == Opcode.SW || opcode == Opcode.SWAP || Opcode.isBranch(opcode)) {
+                live[a] = true;
+                live[b] = true;
+            } else if (opcode == Opcode.PRINT) {
+                live[a] = true;
+            }
+        }
+    }
+
+    // fuse method fuses an addi with the branch that ends the block right after it.
+    private void fuse(int start, int end) {
+        if (end == start || !Opcode.isBranch(code[end * W]) || code[(end - 1) * W] != Opcode.ADDI)
+            return;
+        code[(end - 1) * W] = Opcode.ADDI_BEQ + code[end * W] - Opcode.BEQ;
+    }
+
+    // skipNops method stores in every NOP the length of the run of NOPs it starts, so the engine
+    // jumps over a run at once. A branch into the middle of a run sees the rest of the run.
+    private void skipNops() {
+        for (int pc = program.length - 1; pc >= 0; pc--) {
+            int i = pc * W;
+            if (code[i] == Opcode.NOP)
+                code[i + 3] = pc + 1 < program.length && code[i + W] == Opcode.NOP ? code[i + W + 3] + 1 : 1;
+        }
+    }
+
+    // immediateOf method returns the immediate form of an R-type opcode.
+    private static int immediateOf(int opcode) {
+        switch (opcode) {
+            case Opcode.ADD:
+                return Opcode.ADDI;
+            case Opcode.SUB:
+                return Opcode.SUBI;
+            case Opcode.MUL:
+                return Opcode.MULI;
+            case Opcode.DIV:
+                return Opcode.DIVI;
+            case Opcode.AND:
+                return Opcode.ANDI;
+            case Opcode.OR:
+                return Opcode.ORI;
+            default:
+                return Opcode.XORI;
+        }
+    }
+
+    // evaluate method computes an arithmetic opcode like the interpreter does, y is never a zero divisor.
+    private static int evaluate(int opcode, int x, int y) {
+        switch (opcode) {
+            case Opcode.ADD:
+            case Opcode.ADDI:
+                return x + y;
+            case Opcode.SUB:
+            case Opcode.SUBI:
+                return x - y;
+            case Opcode.MUL:
+            case Opcode.MULI:
+                return x * y;
+            case Opcode.DIV:
+            case Opcode.DIVI:
+                return x / y;
+            case Opcode.AND:
+            case Opcode.ANDI:
+                return x & y;
+            case Opcode.OR:
+            case Opcode.ORI:
+                return x | y;
+            case Opcode.XOR:
+            case Opcode.XORI:
+                return x ^ y;
+            case Opcode.SLL:
+                return (x * y) * 2;
+            case Opcode.SRL:
+                return (x / y) * 2;
+            default:
+                throw new IllegalStateException("Unknown opcode " + opcode + ".");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.mips;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Output is the sink of the print instruction. Values are formatted as ASCII straight into a
+// reusable byte buffer, which is written out when it is full and when flush is called.
+class Output {
+    // SIZE is the size of the buffer, a printed value takes at most 12 bytes.
+    private static final int SIZE = 64 * 1024;
+    private static final int MAX_VALUE_LENGTH = 12;
+
+    private final byte[] buffer = new byte[SIZE];
+    private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+    private int position = 0;
+    // only one of stream and channel is set.
+    private final OutputStream stream;
+    private final FileChannel channel;
+
+    Output(OutputStream stream) {
+        this.stream = stream;
+        this.channel = null;
+    }
+
+    Output(FileChannel channel) {
+        this.stream = null;
+        this.channel = channel;
+    }
+
+    // standard method returns an output writing to System.out.
+    static Output standard() {
+        return new Output(System.out);
+    }
+
+    // toFile method returns an output writing to a file, the file is created or truncated.
+    static Output toFile(Path path) throws IOException {
+        return new Output(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING));
+    }
+
+    // print method writes a value followed by a new line.
+    void print(int value) {
+        if (position > SIZE - MAX_VALUE_LENGTH)
+            flush();
+        int end = position + digits(value);
+        buffer[end] = '\n';
+        // write the digits backwards, negative numbers are handled on the negative side
+        // so Integer.MIN_VALUE does not overflow.
+        int i = end;
+        int rest = value < 0 ? value : -value;
+        do {
+            int next = rest / 10;
+            buffer[--i] = (byte) ('0' + (next * 10 - rest));
+            rest = next;
+        } while (rest != 0);
+        if (value < 0)
+            buffer[--i] = '-';
+        position = end + 1;
+    }
+
+    // printSeries method prints count values first, first + step, first + 2 * step and so on, which must
+    // all be ints. Counting up by one from a value that is not negative keeps the digits of the value in
+    // a small array and adds one to them like an odometer, instead of dividing every value by ten.
+    void printSeries(int first, int step, long count) {
+        if (step != 1 || first < 0) {
+            for (long k = 0; k < count; k++) {
+                print((int) (first + k * step));
+            }
+            return;
+        }
+        byte[] digits = new byte[MAX_VALUE_LENGTH];
+        int length = 0;
+        int rest = first;
+        do {
+            digits[length++] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        // digits holds the least significant digit first.
+        for (long k = 0; k < count; k++) {
+            if (position > SIZE - MAX_VALUE_LENGTH)
+                flush();
+            for (int d = length - 1; d >= 0; d--) {
+                buffer[position++] = digits[d];
+            }
+            buffer[position++] = '\n';
+            int d = 0;
+            while (d < length && digits[d] == '9') {
+                digits[d++] = '0';
+            }
+            if (d == length)
+                digits[length++] = '1';
+            else
+                digits[d]++;
+        }
+    }
+
+    // flush method writes the buffered bytes out.
+    void flush() {
+        if (position == 0)
+            return;
+        try {
+            if (channel != null) {
+                wrapped.clear().limit(position);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+            } else {
+                stream.write(buffer, 0, position);
+                stream.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            position = 0;
+        }
+    }
+
+    // close method flushes the output and closes a file channel, System.out is left open.
+    void close() {
+        flush();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // digits method returns the number of characters of a value, the sign included.
+    private static int digits(int value) {
+        int length = value < 0 ? 2 : 1;
+        int rest = value < 0 ? value : -value;
+        while (rest <= -10) {
+            rest /= 10;
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,85 @@
+package com.mips;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+// ParallelParser scans and parses one large source on the fork-join pool. Every instruction ends
+// with a semicolon and no token holds one, so the source is cut right after a semicolon into
+// pieces that are parsed at the same time. The lines before every piece are counted first, in
+// parallel too, so tokens and errors carry the lines of the whole source. The pieces are then
+// joined in order by the Linker, which moves their branch targets and resolves their labels.
+final class ParallelParser {
+    // THRESHOLD is the size from which a source is split, smaller sources are parsed as fast in one piece.
+    static final int THRESHOLD = 16 << 20;
+
+    private ParallelParser() {
+    }
+
+    // parse method parses a source cut into at most pieces pieces and returns its program. Errors
+    // are reported to reporter, the program must not be run if it has any.
+    static Program parse(ByteBuffer source, Reporter reporter, int pieces) throws IOException {
+        int[] starts = cut(source, pieces);
+        int count = starts.length - 1;
+        int[] newlines = new int[count];
+        List<Callable<Void>> counts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int piece = i;
+            counts.add(() -> {
+                newlines[piece] = newlines(source, starts[piece], starts[piece + 1]);
+                return null;
+            });
+        }
+        Linker.invokeAll(ForkJoinPool.commonPool(), counts);
+        List<Linker.Module> modules = new ArrayList<>(count);
+        int line = 1;
+        for (int i = 0; i < count; i++) {
+            ByteBuffer piece = source.duplicate();
+            piece.limit(starts[i + 1]).position(starts[i]);
+            modules.add(new Linker.Module(piece, line));
+            line += newlines[i];
+        }
+        return Linker.linkModules(modules, reporter);
+    }
+
+    // cut method returns where every piece starts, plus the end of the source. A piece ends after
+    // the first semicolon past its share of the source, the last one at the end of the source.
+    private static int[] cut(ByteBuffer source, int pieces) {
+        int start = source.position();
+        int limit = source.limit();
+        List<Integer> starts = new ArrayList<>(pieces + 1);
+        starts.add(start);
+        int last = start;
+        for (int i = 1; i < pieces; i++) {
+            int position = (int) (start + (long) (limit - start) * i / pieces);
+            if (position <= last)
+                continue;
+            while (position < limit && source.get(position - 1) != ';') {
+                position++;
+            }
+            if (position >= limit)
+                break;
+            starts.add(position);
+            last = position;
+        }
+        starts.add(limit);
+        int[] cuts = new int[starts.size()];
+        for (int i = 0; i < cuts.length; i++) {
+            cuts[i] = starts.get(i);
+        }
+        return cuts;
+    }
+
+    // newlines method counts the lines that end between start and end.
+    private static int newlines(ByteBuffer source, int start, int end) {
+        int lines = 0;
+        for (int i = start; i < end; i++) {
+            if (source.get(i) == '\n')
+                lines++;
+        }
+        return lines;
+    }
+}
@@ -6,24 +6,75 @@ import static com.mips.TokenType.*;
 
 class Parser {
     private final List<Token> tokens;
+    private final Reporter reporter;
     private int current = 0;
+    // symbols holds the labels, references the instructions whose target is a label.
+    private final Symbols symbols = new Symbols();
+    private final List<Integer> references = new ArrayList<>();
 
     static class ParseError extends RuntimeException {
         private static final long serialVersionUID = 1L;
     }
 
     Parser(List<Token> tokens) {
+        this(tokens, Main.reporter);
+    }
+
+    Parser(List<Token> tokens, Reporter reporter) {
         this.tokens = tokens;
+        this.reporter = reporter;
     }
 
     List<Inst> parse() {
         List<Inst> instructions = new ArrayList<>();
         while (!isAtEnd()) {
-            instructions.add(instruction());
+            if (match(IDENTIFIER))
+                label(instructions.size());
+            else
+                instructions.add(instruction(instructions.size()));
         }
+        // targets that are labels are replaced by numbers once every label is known.
+        if (!reporter.hadError)
+            resolve(instructions);
         return instructions;
     }
-    private Inst instruction() {
+
+    // label method defines the label just matched, it names the instruction at index.
+    private void label(int index) {
+        Token name = previous();
+        try {
+            consume(COLON, "Expect colon after label.");
+            symbols.define(name, index, reporter);
+        } catch (ParseError error) {
+            synchronize();
+        }
+    }
+
+    // resolve method replaces the label of every branch and jump by the offset or address it stands for.
+    private void resolve(List<Inst> instructions) {
+        for (int index : references) {
+            Inst instruction = instructions.get(index);
+            Token label = instruction instanceof Inst.Itype ? ((Inst.Itype) instruction).imm
+                    : ((Inst.Jtype) instruction).address;
+            int target = symbols.lookup(label.lexeme);
+            if (target < 0) {
+                error(label, "Undefined label.");
+                continue;
+            }
+            if (instruction instanceof Inst.Itype) {
+                // branches are relative to the next instruction
+                Inst.Itype branch = (Inst.Itype) instruction;
+                Token offset = new Token(NUMBER, label.lexeme, target - index - 1, label.line);
+                instructions.set(index, new Inst.Itype(branch.opcode, branch.rt, branch.rs, offset));
+            } else {
+                // jump addresses are 1-based
+                Token address = new Token(NUMBER, label.lexeme, target + 1, label.line);
+                instructions.set(index, new Inst.Jtype(((Inst.Jtype) instruction).opcode, address));
+            }
+        }
+    }
+    // instruction method parses the instruction at index.
+    private Inst instruction(int index) {
         try {
             if (match(ADD, SUB, AND, OR, MUL, DIV)) {
                 Token name = previous();
@@ -60,6 +111,12 @@ class Parser {
                 Token src2 = consume(REGISTER, "Expect second source register.");
                 consume(COMMA, "Expect comma.");
 
+                    if (match(IDENTIFIER)) {
+                        Token label = previous();
+                        consume(SEMICOLON, "Expect semicolon.");
+                        references.add(index);
+                        return new Inst.Itype(name, src1, src2, label);
+                    }
                     Token sign = null;
                     if (match(MINUS)) {
                         sign = previous();
@@ -74,6 +131,12 @@ class Parser {
 
             else if (match(J)) {
                 Token name = previous();
+                if (match(IDENTIFIER)) {
+                    Token label = previous();
+                    consume(SEMICOLON, "Expect semicolon.");
+                    references.add(index);
+                    return new Inst.Jtype(name, label);
+                }
                 Token sign = null;
                 if (match(MINUS)) {
                     sign = previous();
@@ -137,7 +200,7 @@ class Parser {
     }
 
     private ParseError error(Token token, String message) {
-        Main.error(token, message);
+        reporter.error(token, message);
         return new ParseError();
     }
     private void synchronize() {
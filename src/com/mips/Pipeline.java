@@ -0,0 +1,152 @@
+package com.mips;
+
+import java.io.PrintStream;
+
+// Pipeline is a timing model of a classic 5-stage MIPS pipeline (IF, ID, EX, MEM, WB) that issues
+// one instruction per cycle in order. It is fed the retired instructions of a run and computes the
+// cycle every one of them reaches EX, the stalls are counted by cause:
+//
+//   - data: an operand is written by an instruction still in the pipeline. With forwarding an ALU
+//     result is ready for the next instruction and a loaded value one cycle later (load-use).
+//     Without forwarding every result is read from the register file after its WB.
+//   - branch: a taken branch is resolved in EX, the two instructions fetched after it are flushed.
+//     Whether it is taken is computed from the registers before it runs, like BranchModel does.
+//   - jump: a jump is resolved in ID, the instruction fetched after it is flushed.
+//
+// The model keeps a scoreboard of the cycle every register is ready, so it allocates nothing
+// while the program runs.
+class Pipeline {
+    static final int BRANCH_PENALTY = 2;
+    static final int JUMP_PENALTY = 1;
+
+    private final Program program;
+    private final boolean forwarding;
+    // sources and destinations hold the two registers read and written by the instruction at every pc, or -1.
+    private final int[] sources;
+    private final int[] destinations;
+    // ready holds the cycle the value of every register can be used in EX, loaded tells if it comes from lw.
+    private final long[] ready = new long[Environment.REGISTER_COUNT];
+    private final boolean[] loaded = new boolean[Environment.REGISTER_COUNT];
+
+    // ex is the cycle the last instruction was in EX, the first one is in EX at cycle 3.
+    private long ex = 2;
+    // penalty is the flush after the last instruction when it was a taken branch or a jump.
+    private int penalty = 0;
+    private long instructions = 0;
+    private long dataStalls = 0;
+    private long loadStalls = 0;
+    private long branchStalls = 0;
+    private long jumpStalls = 0;
+
+    Pipeline(Program program, boolean forwarding) {
+        this.program = program;
+        this.forwarding = forwarding;
+        this.sources = new int[program.length * 2];
+        this.destinations = new int[program.length * 2];
+        for (int pc = 0; pc < program.length; pc++) {
+            operands(pc);
+        }
+    }
+
+    // step method is called before the instruction at pc runs, with the registers it reads.
+    void step(int pc, int[] registers) {
+        long ex = this.ex + 1 + penalty;
+        int i = pc * 2;
+        for (int k = i; k < i + 2; k++) {
+            int source = sources[k];
+            if (source >= 0 && ready[source] > ex) {
+                if (loaded[source])
+                    loadStalls += ready[source] - ex;
+                else
+                    dataStalls += ready[source] - ex;
+                ex = ready[source];
+            }
+        }
+        boolean load = program.opcode(pc) == Opcode.LW;
+        // with forwarding a result goes from the end of EX, or of MEM for a load, to the next EX.
+        // without it, the register is written in the first half of WB and read in ID in the second half.
+        long available = ex + (forwarding ? (load ? 2 : 1) : 3);
+        for (int k = i; k < i + 2; k++) {
+            int destination = destinations[k];
+            if (destination >= 0) {
+                ready[destination] = available;
+                loaded[destination] = load;
+            }
+        }
+        this.ex = ex;
+        // a jump is always taken, a branch to the next instruction is flushed like any taken branch.
+        int opcode = program.opcode(pc);
+        int at = pc * Program.WIDTH;
+        if (opcode == Opcode.J) {
+            penalty = JUMP_PENALTY;
+            jumpStalls += JUMP_PENALTY;
+        } else if (Opcode.isBranch(opcode)
+                && Opcode.taken(opcode, registers[program.code[at + 2]], registers[program.code[at + 1]])) {
+            penalty = BRANCH_PENALTY;
+            branchStalls += BRANCH_PENALTY;
+        } else {
+            penalty = 0;
+        }
+        instructions++;
+    }
+
+    // cycles method returns the cycles of the run up to the WB of the last instruction, and the flush
+    // after it when the run ends with a taken branch or a jump.
+    long cycles() {
+        return instructions == 0 ? 0 : ex + 2 + penalty;
+    }
+
+    // report method prints the cycles, the CPI and the stalls by cause.
+    void report(PrintStream out) {
+        long cycles = cycles();
+        out.println("pipeline: 5 stages, " + (forwarding ? "forwarding" : "no forwarding"));
+        out.printf("%-14s %14d%n", "instructions", instructions);
+        out.printf("%-14s %14d%n", "cycles", cycles);
+        out.printf("%-14s %14.3f%n", "CPI", instructions == 0 ? 0.0 : (double) cycles / instructions);
+        out.println("stalls:");
+        stall(out, "data", dataStalls, cycles);
+        stall(out, "load-use", loadStalls, cycles);
+        stall(out, "branch", branchStalls, cycles);
+        stall(out, "jump", jumpStalls, cycles);
+    }
+
+    private static void stall(PrintStream out, String cause, long stalls, long cycles) {
+        out.printf("%-14s %14d %6.2f%%%n", cause, stalls, cycles == 0 ? 0.0 : 100.0 * stalls / cycles);
+    }
+
+    // operands method fills the registers read and written by the instruction at pc.
+    private void operands(int pc) {
+        int i = pc * Program.WIDTH;
+        int opcode = program.code[i];
+        int a = program.code[i + 1];
+        int b = program.code[i + 2];
+        int read1 = -1;
+        int read2 = -1;
+        int write1 = -1;
+        int write2 = -1;
+        if (opcode <= Opcode.XOR) {
+            read1 = b;
+            read2 = program.code[i + 3];
+            write1 = a;
+        } else if (opcode <= Opcode.LW || opcode == Opcode.MOVE || opcode == Opcode.SHLI) {
+            read1 = b;
+            write1 = a;
+        } else if (opcode == Opcode.SW || Opcode.isBranch(opcode)) {
+            read1 = a;
+            read2 = b;
+        } else if (opcode == Opcode.SWAP) {
+            read1 = a;
+            read2 = b;
+            write1 = a;
+            write2 = b;
+        } else if (opcode == Opcode.PRINT) {
+            read1 = a;
+        } else if (opcode == Opcode.LI) {
+            write1 = a;
+        }
+        sources[pc * 2] = read1;
+        sources[pc * 2 + 1] = read2;
+        destinations[pc * 2] = write1;
+        destinations[pc * 2 + 1] = write2;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mips;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Profile holds the execution counters of a program: how often every pc was executed and how
+// often every branch was taken. Counts per line and not-taken counts are derived when reporting.
+class Profile {
+    private final Program program;
+    // counts holds the executions of every pc.
+    final long[] counts;
+    // taken holds how often the branch or jump at every pc was taken.
+    final long[] taken;
+
+    Profile(Program program) {
+        this.program = program;
+        this.counts = new long[program.length];
+        this.taken = new long[program.length];
+    }
+
+    // retired method returns the number of instructions executed.
+    long retired() {
+        long retired = 0;
+        for (long count : counts) {
+            retired += count;
+        }
+        return retired;
+    }
+
+    // lineCounts method returns the executions of every source line, indexed by line.
+    long[] lineCounts() {
+        int last = 0;
+        for (int pc = 0; pc < program.length; pc++) {
+            last = Math.max(last, program.lines[pc]);
+        }
+        long[] lines = new long[last + 1];
+        for (int pc = 0; pc < program.length; pc++) {
+            lines[program.lines[pc]] += counts[pc];
+        }
+        return lines;
+    }
+
+    // report method prints the instructions retired, the hottest lines and the branch counts.
+    void report(PrintStream out, int top) {
+        long retired = retired();
+        out.println("profile: " + retired + " instructions retired");
+        long[] lines = lineCounts();
+        List<Integer> hot = new ArrayList<>();
+        for (int line = 0; line < lines.length; line++) {
+            if (lines[line] > 0)
+                hot.add(line);
+        }
+        hot.sort((a, b) -> Long.compare(lines[b], lines[a]));
+        out.println("hot lines:");
+        out.printf("%8s %14s %7s%n", "line", "count", "%");
+        for (int i = 0; i < Math.min(top, hot.size()); i++) {
+            int line = hot.get(i);
+            out.printf("%8d %14d %6.2f%%%n", line, lines[line], 100.0 * lines[line] / retired);
+        }
+        out.println("branches:");
+        out.printf("%8s %8s %-5s %14s %14s%n", "pc", "line", "op", "taken", "not taken");
+        for (int pc = 0; pc < program.length; pc++) {
+            if (Opcode.isBranch(program.opcode(pc)) && counts[pc] > 0) {
+                out.printf("%8d %8d %-5s %14d %14d%n", pc, program.lines[pc],
+                        Opcode.type(program.opcode(pc)).name().toLowerCase(), taken[pc], counts[pc] - taken[pc]);
+            }
+        }
+    }
+
+    // write method writes the profile as CSV: a row per pc and a row per executed line.
+    void write(Path path) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            out.println("kind,pc,line,opcode,count,taken,not_taken");
+            for (int pc = 0; pc < program.length; pc++) {
+                String opcode = Opcode.type(program.opcode(pc)).name().toLowerCase();
+                boolean branch = Opcode.isBranch(program.opcode(pc));
+                out.println("pc," + pc + "," + program.lines[pc] + "," + opcode + "," + counts[pc] + ","
+                        + (branch ? taken[pc] : "") + "," + (branch ? counts[pc] - taken[pc] : ""));
+            }
+            long[] lines = lineCounts();
+            for (int line = 0; line < lines.length; line++) {
+                if (lines[line] > 0)
+                    out.println("line,," + line + ",," + lines[line] + ",,");
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mips;
+
+// Program is the decoded, immutable form of a list of instructions. It is never changed once
+// built, so one program can be run by many sessions on different threads at the same time.
+// Every instruction takes WIDTH ints in code: the opcode and three operands a, b and c.
+// Register operands are indices into the register file, immediates are stored as they are
+// and branch and jump targets are stored as absolute instruction indices.
+public final class Program {
+    static final int WIDTH = 4;
+
+    final int[] code;
+    // lines holds the source line of every instruction, used for error messages.
+    final int[] lines;
+    final int length;
+
+    Program(int[] code, int[] lines, int length) {
+        this.code = code;
+        this.lines = lines;
+        this.length = length;
+    }
+
+    // size method returns the number of instructions.
+    public int size() {
+        return length;
+    }
+
+    // opcode method returns the opcode of the instruction at pc.
+    int opcode(int pc) {
+        return code[pc * WIDTH];
+    }
+
+    // token method rebuilds the opcode token of the instruction at pc, it is only used on error paths.
+    Token token(int pc) {
+        TokenType type = Opcode.type(opcode(pc));
+        return new Token(type, type.name().toLowerCase(), null, lines[pc]);
+    }
+}
@@ -0,0 +1,52 @@
+package com.mips;
+
+import java.util.Arrays;
+
+// ProgramBuilder collects decoded instructions in growable primitive arrays.
+class ProgramBuilder {
+    private int[] code;
+    private int[] lines;
+    private int length = 0;
+
+    ProgramBuilder() {
+        this(16);
+    }
+
+    ProgramBuilder(int capacity) {
+        capacity = Math.max(capacity, 1);
+        code = new int[capacity * Program.WIDTH];
+        lines = new int[capacity];
+    }
+
+    // add method appends one instruction and returns its index.
+    int add(int opcode, int a, int b, int c, int line) {
+        if (length == lines.length) {
+            lines = Arrays.copyOf(lines, length * 2);
+            code = Arrays.copyOf(code, length * 2 * Program.WIDTH);
+        }
+        int i = length * Program.WIDTH;
+        code[i] = opcode;
+        code[i + 1] = a;
+        code[i + 2] = b;
+        code[i + 3] = c;
+        lines[length] = line;
+        return length++;
+    }
+
+    // size method returns the number of instructions added so far.
+    int size() {
+        return length;
+    }
+
+    // truncate method drops the instructions from length on, the REPL drops a line with errors this way.
+    // Programs built before with at most length instructions stay valid.
+    void truncate(int length) {
+        this.length = length;
+    }
+
+    // build method returns the program. The arrays are shared instead of copied, which is safe
+    // because the builder only ever writes past the length of a program it has built.
+    Program build() {
+        return new Program(code, lines, length);
+    }
+}
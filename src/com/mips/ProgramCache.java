@@ -0,0 +1,158 @@
+package com.mips;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// ProgramCache keeps decoded programs on disk, keyed by the SHA-256 of their source, so a program
+// that was already compiled is loaded without scanning or parsing it again.
+//
+// A cache file holds, as big-endian ints: MAGIC, FORMAT_VERSION, the instruction count, the
+// instruction width, the code and the lines. Files with another magic or version are ignored
+// and replaced, so FORMAT_VERSION must change whenever Opcode or the Program layout changes.
+class ProgramCache {
+    private static final int MAGIC = 0x4D495043; // "MIPC"
+    static final int FORMAT_VERSION = 2;
+    private static final int HEADER = 4;
+
+    private final Path directory;
+
+    ProgramCache(Path directory) {
+        this.directory = directory;
+    }
+
+    // defaultDirectory method returns the cache directory used when none is given.
+    static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".cache", "mips");
+    }
+
+    // compile method returns the decoded program of a source file, from the cache when it is there.
+    // A program with errors is not stored.
+    Program compile(Path source, Reporter reporter) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File is too large: " + source);
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            Path cached = directory.resolve(hash(bytes.duplicate()) + ".mipsc");
+            Program program = load(cached);
+            if (program != null)
+                return program;
+            ProgramBuilder builder = new ProgramBuilder((int) (size / 16));
+            new StreamParser(new ByteScanner(bytes, reporter), builder, reporter).parse();
+            program = builder.build();
+            if (!reporter.hadError) {
+                try {
+                    store(program, cached);
+                } catch (IOException e) {
+                    // a cache directory that can not be written only means the program is not cached.
+                }
+            }
+            return program;
+        }
+    }
+
+    // load method maps a cache file and returns its program, or null if it is missing, stale or
+    // corrupt. The engines do not check targets or opcodes, so a cached program is checked like a parsed one.
+    static Program load(Path path) throws IOException {
+        if (!Files.isRegularFile(path))
+            return null;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER * 4L || size > Integer.MAX_VALUE)
+                return null;
+            IntBuffer ints = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).asIntBuffer();
+            if (ints.get() != MAGIC || ints.get() != FORMAT_VERSION)
+                return null;
+            int length = ints.get();
+            if (ints.get() != Program.WIDTH || length < 0 || ints.remaining() != (long) length * (Program.WIDTH + 1))
+                return null;
+            int[] code = new int[length * Program.WIDTH];
+            int[] lines = new int[length];
+            ints.get(code);
+            ints.get(lines);
+            Program program = new Program(code, lines, length);
+            if (!valid(program))
+                return null;
+            return program;
+        }
+    }
+
+    // valid method returns true if every opcode and register of a program is in range and its targets are valid.
+    private static boolean valid(Program program) {
+        for (int pc = 0; pc < program.length; pc++) {
+            int i = pc * Program.WIDTH;
+            int opcode = program.code[i];
+            // only the parsers store programs, never the Optimizer.
+            if (opcode < 0 || opcode > Opcode.PRINT || !register(program.code[i + 1]) || !register(program.code[i + 2])
+                    || opcode <= Opcode.XOR && !register(program.code[i + 3]))
+                return false;
+        }
+        return ControlFlow.verify(program, new Reporter(new PrintStream(OutputStream.nullOutputStream())));
+    }
+
+    private static boolean register(int index) {
+        return index >= 0 && index < Environment.REGISTER_COUNT;
+    }
+
+    // store method writes a program to a cache file. It is written to a temporary file first and
+    // moved in place, so runs reading the cache at the same time never see half a file.
+    static void store(Program program, Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path temporary = Files.createTempFile(path.getParent(), "program", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(program.length).putInt(Program.WIDTH);
+                write(channel, buffer, program.code, program.length * Program.WIDTH);
+                write(channel, buffer, program.lines, program.length);
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // write method writes the first count ints of values through the buffer.
+    private static void write(FileChannel channel, ByteBuffer buffer, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < 4) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+            buffer.putInt(values[i]);
+        }
+    }
+
+    // hash method returns the SHA-256 of the bytes as hex.
+    private static String hash(ByteBuffer bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes);
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mips;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Repl runs a program line by line as it is typed. The lines are appended to one program, so a
+// branch can go back to an earlier line, and the registers are kept from line to line. Only the
+// new line is scanned, parsed and checked, then the program runs from its first new instruction.
+// A line with errors is reported and dropped, the session goes on.
+class Repl {
+    private final ProgramBuilder builder = new ProgramBuilder();
+    // symbols holds the labels of all the lines, a line can only go to a label defined before it runs.
+    private final Symbols symbols = new Symbols();
+    private final Interpreter interpreter;
+    private final Reporter reporter;
+    private final boolean tiered;
+    // lines is the number of lines read so far, errors are reported with the line of the session.
+    private int lines = 0;
+
+    Repl(Interpreter interpreter, Reporter reporter, boolean tiered) {
+        this.interpreter = interpreter;
+        this.reporter = reporter;
+        this.tiered = tiered;
+    }
+
+    // line method adds a line to the program and runs it, it returns false if the line had errors.
+    boolean line(String source) {
+        lines++;
+        int start = builder.size();
+        int labels = symbols.count();
+        ByteBuffer bytes = ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+        new StreamParser(new ByteScanner(bytes, reporter, lines), builder, reporter, symbols).parse();
+        if (reporter.hadError) {
+            // forget the line and its labels, the program stays as it was before it.
+            builder.truncate(start);
+            symbols.rollback(labels);
+            reporter.reset();
+            return false;
+        }
+        interpreter.execute(builder.build(), tiered, start);
+        // a runtime error was reported, the instruction stays in the program.
+        reporter.reset();
+        return true;
+    }
+}
@@ -0,0 +1,62 @@
+package com.mips;
+
+import java.io.PrintStream;
+
+// Reporter prints syntax and runtime errors and remembers that they happened.
+// Every program being compiled or run reports to its own Reporter, so programs do not share error state.
+class Reporter {
+    private final PrintStream err;
+    // file is the name of the file the errors are in, it is only set for the files of a linked program.
+    private final String file;
+    boolean hadError = false;
+    boolean hadRuntimeError = false;
+
+    Reporter(PrintStream err) {
+        this(err, null);
+    }
+
+    // Reporter reports the errors of one file of a program made of many, every error names the file.
+    Reporter(PrintStream err, String file) {
+        this.err = err;
+        this.file = file;
+    }
+
+    // parser error.
+    void error(Token token, String message) {
+        if (token.type == TokenType.EOF) {
+            report(token.line, " at end", message);
+        } else {
+            report(token.line, " at '" + token.lexeme + "'", message);
+        }
+    }
+
+    // scanner error.
+    void error(int line, String message) {
+        report(line, "", message);
+    }
+
+    // runtime error.
+    void runtimeError(RuntimeError error) {
+        err.println(error.getMessage() +
+                "\n[line " + error.token.line + "]");
+        hadRuntimeError = true;
+    }
+
+    // errors method prints errors another Reporter collected, the Linker prints the errors of every file in order.
+    void errors(String messages) {
+        err.print(messages);
+        hadError = true;
+    }
+
+    // reset method forgets the errors, the REPL calls it after every line.
+    void reset() {
+        hadError = false;
+        hadRuntimeError = false;
+    }
+
+    // report is a helper function that prints an error message.
+    private void report(int line, String where, String message) {
+        err.println("[" + (file != null ? file + " " : "") + "line " + line + "] Error" + where + ": " + message);
+        hadError = true;
+    }
+}
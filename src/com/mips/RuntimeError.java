@@ -1,9 +1,14 @@
 package com.mips;
 // Runtime error class is a subclass of RuntimeException
-class RuntimeError extends RuntimeException {
+public class RuntimeError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
     final Token token;
     RuntimeError(Token token, String message) {
         super(message);
         this.token = token;
     }
-}
\ No newline at end of file
+    // line method returns the source line of the instruction that failed.
+    public int line() {
+        return token.line;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Map;
 // Scanner is a class that scans the source code and returns a list of tokens.
 public class Scanner {
     private final String source;
+    private final Reporter reporter;
     private final List<Token> tokens = new ArrayList<>();
     // start and current are the indices of the first and last characters of the
     // substring
@@ -44,11 +45,23 @@ public class Scanner {
         keywords.put("muli", TokenType.MULI);
         keywords.put("divi", TokenType.DIVI);
         keywords.put("swap", TokenType.SWAP);
+        keywords.put("lw", TokenType.LW);
+        keywords.put("sw", TokenType.SW);
+    }
+
+    // keyword is a method that returns the token type of a reserved word, or null.
+    static TokenType keyword(String text) {
+        return keywords.get(text);
     }
 
     // Scanner is the constructor for the Scanner class.
     Scanner(String source) {
+        this(source, Main.reporter);
+    }
+
+    Scanner(String source, Reporter reporter) {
         this.source = source;
+        this.reporter = reporter;
     }
 
     // scanTokens is a method that returns a list of tokens.
@@ -160,7 +173,7 @@ public class Scanner {
             advance();
         String text = source.substring(start, current); // get the substring from start to current.
         if (text.length() != 2 || !isRegister(text.charAt(0)) || !isDigit(text.charAt(1)))
-            Main.error(line, "Invalid register.");
+            reporter.error(line, "Invalid register.");
         addToken(TokenType.REGISTER);
     }
 
@@ -203,7 +216,7 @@ public class Scanner {
                 } else if (isAlpha(c)) {
                     identifier();
                 } else {
-                    Main.error(line, "Unexpected character.");
+                    reporter.error(line, "Unexpected character.");
                 }
                 break;
         }
@@ -0,0 +1,95 @@
+package com.mips;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+
+// Session runs a Program with its own register file and output. A session can be reset and run
+// again without allocating, and sessions of the same program can run on different threads at
+// the same time. A single session must not be used by two threads at once.
+public final class Session {
+    private final Program program;
+    private final Output output;
+    private final Interpreter interpreter;
+    private boolean tiered = false;
+
+    // Session creates a session printing to System.out.
+    public Session(Program program) {
+        this(program, System.out);
+    }
+
+    // Session creates a session printing to a stream, the stream is written when a run stops.
+    public Session(Program program, OutputStream out) {
+        this.program = program;
+        this.output = new Output(out);
+        // runtime errors are thrown from run, so the reporter does not print them.
+        this.interpreter = new Interpreter(output, new Reporter(new PrintStream(OutputStream.nullOutputStream())));
+    }
+
+    // setTiered method turns compilation of hot loops on or off for the next runs.
+    public void setTiered(boolean tiered) {
+        this.tiered = tiered;
+    }
+
+    // setMemory method gives the session its data memory, it is kept between runs and by reset.
+    // Without it a memory of Memory.DEFAULT_SIZE bytes is allocated by the first lw or sw.
+    public void setMemory(Memory memory) {
+        interpreter.setMemory(memory);
+    }
+
+    // memory method returns the data memory of the session
+    public Memory memory() {
+        return interpreter.memory();
+    }
+
+    // setLimits method bounds the next runs, or removes the bounds with null.
+    public void setLimits(Limits limits) {
+        interpreter.setLimits(limits);
+    }
+
+    // run method runs the program from the first instruction with the current registers.
+    // It throws the RuntimeError that stopped the program, an ExecutionLimitError when it went over its limits.
+    public void run() {
+        interpreter.execute(program, tiered);
+        RuntimeError error = interpreter.error();
+        if (error != null)
+            throw error;
+    }
+
+    // resume method continues the program from where the last run stopped or the restored snapshot
+    public void resume() {
+        interpreter.resume(program, tiered);
+        RuntimeError error = interpreter.error();
+        if (error != null)
+            throw error;
+    }
+
+    // snapshot method writes the pc, the registers and the memory to a file, see Snapshot
+    public void snapshot(Path path) throws IOException {
+        Snapshot.write(interpreter, program, path);
+    }
+
+    // restore method puts a snapshot of the same program into the session, resume continues from it
+    public void restore(Snapshot snapshot) {
+        snapshot.restore(interpreter, program);
+    }
+
+    // reset method sets every register back to 0, the memory is kept.
+    public void reset() {
+        interpreter.reset();
+    }
+
+    // register method returns the value of a register given its name, like "t0" or "$t0".
+    public int register(String name) {
+        String lexeme = name.startsWith("$") ? name.substring(1) : name;
+        if (!Environment.valid(lexeme))
+            throw new IllegalArgumentException("Invalid register: " + name);
+        return interpreter.register(Environment.index(lexeme));
+    }
+
+    // retired method returns the instructions retired by the last run, it is only counted with limits.
+    public long retired() {
+        return interpreter.retired();
+    }
+}
@@ -0,0 +1,74 @@
+package com.mips;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+// Simulator is the entry point for embedding the simulator in another program. It compiles
+// sources into immutable Programs, which are run by Sessions:
+//
+//     Program program = Simulator.compile(source);
+//     Session session = new Session(program, out);
+//     session.run();
+//     session.reset();
+//
+// Nothing here touches static state or exits the process, errors are thrown.
+public final class Simulator {
+    private Simulator() {
+    }
+
+    // compile method compiles a source, it throws CompileException if it has syntax errors.
+    public static Program compile(String source) throws CompileException {
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        Reporter reporter = reporter(errors);
+        ByteBuffer bytes = ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+        ProgramBuilder builder = new ProgramBuilder();
+        new StreamParser(new ByteScanner(bytes, reporter), builder, reporter).parse();
+        return check(builder.build(), reporter, errors);
+    }
+
+    // compile method compiles a source file, it throws CompileException if it has syntax errors.
+    public static Program compile(Path path) throws CompileException, IOException {
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        Reporter reporter = reporter(errors);
+        return check(StreamParser.parse(path, reporter), reporter, errors);
+    }
+
+    // link method compiles many source files in parallel and links them into one program, a file
+    // can branch or jump to the labels of the others. It throws CompileException if any file has errors.
+    public static Program link(List<Path> paths) throws CompileException, IOException {
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        Reporter reporter = reporter(errors);
+        return check(Linker.link(paths, reporter), reporter, errors);
+    }
+
+    // load method reads an image written by assemble, it throws IOException if it is not a valid
+    // image and CompileException if a branch or jump goes outside of it.
+    public static Program load(Path path) throws CompileException, IOException {
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        Reporter reporter = reporter(errors);
+        Program program = Image.read(path).program();
+        ControlFlow.verify(program, reporter);
+        return check(program, reporter, errors);
+    }
+
+    // assemble method writes a program as an image of machine words, which load reads back without parsing.
+    public static void assemble(Program program, Path path) throws IOException {
+        Assembler.assemble(program).write(path);
+    }
+
+    private static Reporter reporter(ByteArrayOutputStream errors) {
+        return new Reporter(new PrintStream(errors, true, StandardCharsets.UTF_8));
+    }
+
+    private static Program check(Program program, Reporter reporter, ByteArrayOutputStream errors)
+            throws CompileException {
+        if (reporter.hadError)
+            throw new CompileException(errors.toString(StandardCharsets.UTF_8).lines().toList());
+        return program;
+    }
+}
@@ -0,0 +1,124 @@
+package com.mips;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Snapshot is the state of a stopped run read from a snapshot file: the pc, the registers and the
+// data memory. A snapshot can be restored into any number of interpreters running the same program,
+// so many runs can be started from one warm state without running the program up to it again.
+//
+// A snapshot file holds, big-endian: MAGIC, FORMAT_VERSION, the pc, the instruction count and a
+// fingerprint of the program, the register count and the registers, the memory size (-1 when the
+// run had no memory) and the memory bytes. The memory is written straight from the direct buffer
+// and read back through a mapping, so it is never copied onto the heap.
+public final class Snapshot {
+    private static final int MAGIC = 0x4D495053; // "MIPS"
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER = 4 * 4 + 8 + 4 + Environment.REGISTER_COUNT * 4 + 4;
+
+    private final int pc;
+    private final int length;
+    private final long fingerprint;
+    private final int[] registers;
+    // memory is a read-only view of the mapped file, or null
+    private final ByteBuffer memory;
+
+    private Snapshot(int pc, int length, long fingerprint, int[] registers, ByteBuffer memory) {
+        this.pc = pc;
+        this.length = length;
+        this.fingerprint = fingerprint;
+        this.registers = registers;
+        this.memory = memory;
+    }
+
+    // pc method returns the pc the run will continue from
+    public int pc() {
+        return pc;
+    }
+
+    // write method writes the state of an interpreter that ran program to a snapshot file. It is written
+    // to a temporary file first and moved in place, so a snapshot file is never seen half written. The
+    // temporary file gets the default permissions, not the owner-only ones of Files.createTempFile.
+    static void write(Interpreter interpreter, Program program, Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = directory.resolve("snapshot" + Long.toUnsignedString(ThreadLocalRandom.current().nextLong())
+                + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(interpreter.pc).putInt(program.length);
+                header.putLong(fingerprint(program)).putInt(Environment.REGISTER_COUNT);
+                for (int value : interpreter.registers()) {
+                    header.putInt(value);
+                }
+                ByteBuffer memory = interpreter.hasMemory() ? interpreter.memory().bytes() : null;
+                header.putInt(memory != null ? memory.capacity() : -1);
+                header.flip();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                while (memory != null && memory.hasRemaining()) {
+                    channel.write(memory);
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // read method maps a snapshot file, it throws IOException if it is not a snapshot of this version
+    public static Snapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER || size > Integer.MAX_VALUE)
+                throw new IOException("Not a snapshot: " + path);
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (bytes.getInt() != MAGIC || bytes.getInt() != FORMAT_VERSION)
+                throw new IOException("Not a snapshot of this version: " + path);
+            int pc = bytes.getInt();
+            int length = bytes.getInt();
+            long fingerprint = bytes.getLong();
+            if (bytes.getInt() != Environment.REGISTER_COUNT)
+                throw new IOException("Not a snapshot of this version: " + path);
+            int[] registers = new int[Environment.REGISTER_COUNT];
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = bytes.getInt();
+            }
+            int memorySize = bytes.getInt();
+            if (memorySize >= 0 ? bytes.remaining() != memorySize : bytes.hasRemaining())
+                throw new IOException("Truncated snapshot: " + path);
+            ByteBuffer memory = memorySize >= 0 ? bytes.slice() : null;
+            return new Snapshot(pc, length, fingerprint, registers, memory);
+        }
+    }
+
+    // restore method puts the snapshot into an interpreter, which can then resume program.
+    // The memory is copied, so runs restored from the same snapshot do not see each other's stores.
+    void restore(Interpreter interpreter, Program program) {
+        if (length != program.length || fingerprint != fingerprint(program))
+            throw new IllegalArgumentException("The snapshot was taken from another program.");
+        if (pc < 0 || pc > length)
+            throw new IllegalArgumentException("The snapshot has an invalid pc.");
+        System.arraycopy(registers, 0, interpreter.registers(), 0, registers.length);
+        // without memory in the snapshot, a fresh memory is allocated on first use
+        interpreter.setMemory(memory != null ? Memory.copyOf(memory) : null);
+        interpreter.pc = pc;
+    }
+
+    // fingerprint method hashes the code of a program, a snapshot is only restored into the program it came from
+    private static long fingerprint(Program program) {
+        long hash = program.length;
+        for (int i = 0; i < program.length * Program.WIDTH; i++) {
+            hash = hash * 31 + program.code[i];
+        }
+        return hash;
+    }
+}
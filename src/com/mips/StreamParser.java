@@ -0,0 +1,186 @@
+package com.mips;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static com.mips.TokenType.*;
+
+// StreamParser parses tokens from a TokenCursor, usually a ByteScanner as it scans, and decodes
+// every instruction straight into a ProgramBuilder, so neither Token objects nor Inst nodes are made.
+// It accepts the same language and reports the same errors as Parser followed by Decoder, and
+// checks the branch and jump targets with ControlFlow.verify once the whole program is known.
+// Labels are collected in Symbols and the targets using them are patched once the source is parsed.
+class StreamParser {
+    private final TokenCursor scanner;
+    private final ProgramBuilder builder;
+    private final Reporter reporter;
+    private final Symbols symbols;
+
+    StreamParser(TokenCursor scanner, ProgramBuilder builder) {
+        this(scanner, builder, Main.reporter);
+    }
+
+    StreamParser(TokenCursor scanner, ProgramBuilder builder, Reporter reporter) {
+        this(scanner, builder, reporter, new Symbols());
+    }
+
+    // StreamParser adds the labels to symbols, the REPL keeps them from line to line.
+    StreamParser(TokenCursor scanner, ProgramBuilder builder, Reporter reporter, Symbols symbols) {
+        this.scanner = scanner;
+        this.builder = builder;
+        this.reporter = reporter;
+        this.symbols = symbols;
+    }
+
+    // parse method memory-maps a source file and returns its decoded program. A large source is
+    // parsed in pieces on all the processors by ParallelParser.
+    static Program parse(Path path, Reporter reporter) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("File is too large: " + path);
+            MappedByteBuffer source = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int processors = Runtime.getRuntime().availableProcessors();
+            if (size >= ParallelParser.THRESHOLD && processors > 1)
+                return ParallelParser.parse(source, reporter, processors);
+            // an instruction takes about 16 bytes of source, start with room for that many.
+            ProgramBuilder builder = new ProgramBuilder((int) (size / 16));
+            new StreamParser(new ByteScanner(source, reporter), builder, reporter).parse();
+            return builder.build();
+        }
+    }
+
+    // parse method parses every instruction up to the end of the source.
+    void parse() {
+        // instructions already in the builder were checked when they were parsed.
+        int start = builder.size();
+        parseModule();
+        // labels and targets can only be checked once the whole program is known, and are not after a syntax error.
+        if (!reporter.hadError)
+            symbols.resolve(builder.build().code, 0, symbols.labels(), reporter);
+        if (!reporter.hadError)
+            ControlFlow.verify(builder.build(), start, reporter);
+    }
+
+    // parseModule method parses every instruction of one file of a larger program, the Linker
+    // resolves its labels and checks its targets once all the files are parsed. It returns false
+    // if parsing stopped at a syntax error, the rest of the source is then only scanned.
+    boolean parseModule() {
+        scanner.next();
+        while (scanner.type() != EOF) {
+            if (!instruction())
+                return false;
+        }
+        return true;
+    }
+
+    private boolean instruction() {
+        try {
+            TokenType type = scanner.type();
+            int line = scanner.line();
+            if (type == IDENTIFIER) {
+                // a label names the instruction after it.
+                Token name = scanner.token();
+                scanner.next();
+                consume(COLON, "Expect colon after label.");
+                symbols.define(name, builder.size(), reporter);
+            } else if (type == ADD || type == SUB || type == AND || type == OR || type == MUL || type == DIV) {
+                scanner.next();
+                int src1 = consume(REGISTER, "Expect first source register.");
+                consume(COMMA, "Expect comma.");
+                int src2 = consume(REGISTER, "Expect second source register.");
+                consume(COMMA, "Expect comma.");
+                int dest = consume(REGISTER, "Expect destination register.");
+                consume(SEMICOLON, "Expect semicolon.");
+                builder.add(Opcode.of(type), src1, src2, dest, line);
+            } else if (type == ADDI || type == SUBI || type == ANDI || type == ORI || type == SLL || type == SRL
+                    || type == LW || type == SW || type == MULI || type == DIVI || type == SWAP) {
+                scanner.next();
+                int src = consume(REGISTER, "Expect source register.");
+                consume(COMMA, "Expect comma.");
+                int dest = consume(REGISTER, "Expect destination register.");
+                consume(COMMA, "Expect comma.");
+                int imm = signed("Expect immediate value.");
+                consume(SEMICOLON, "Expect semicolon.");
+                builder.add(Opcode.of(type), src, dest, imm, line);
+            } else if (type == BEQ || type == BNQ || type == BGE || type == BGT || type == BLT || type == BLE) {
+                scanner.next();
+                int src1 = consume(REGISTER, "Expect first source register.");
+                consume(COMMA, "Expect comma.");
+                int src2 = consume(REGISTER, "Expect second source register.");
+                consume(COMMA, "Expect comma.");
+                Token label = label();
+                int offset = label == null ? signed("Relative address.") : 0;
+                consume(SEMICOLON, "Expect semicolon.");
+                // branches are relative to the next instruction, store the absolute target
+                int pc = builder.add(Opcode.of(type), src1, src2, builder.size() + offset + 1, line);
+                if (label != null)
+                    symbols.reference(label, pc);
+            } else if (type == J) {
+                scanner.next();
+                Token label = label();
+                int address = label == null ? signed("Absolute address.") : 0;
+                consume(SEMICOLON, "Expect semicolon.");
+                // jump addresses are 1-based, store the 0-based target
+                int pc = builder.add(Opcode.J, 0, 0, address - 1, line);
+                if (label != null)
+                    symbols.reference(label, pc);
+            } else {
+                if (type == PRINT)
+                    scanner.next();
+                line = scanner.line();
+                int reg = consume(REGISTER, "Expect register.");
+                consume(SEMICOLON, "Expect semicolon.");
+                builder.add(Opcode.PRINT, reg, 0, 0, line);
+            }
+            return true;
+        } catch (Parser.ParseError error) {
+            synchronize();
+            return false;
+        }
+    }
+
+    // label method consumes a label used as a target and returns its token, or null if the target is a number.
+    private Token label() {
+        if (scanner.type() != IDENTIFIER)
+            return null;
+        Token label = scanner.token();
+        scanner.next();
+        return label;
+    }
+
+    // signed method consumes a number with an optional minus sign.
+    private int signed(String message) {
+        boolean negative = false;
+        if (scanner.type() == MINUS) {
+            negative = true;
+            scanner.next();
+        }
+        int value = consume(NUMBER, message);
+        return negative ? -value : value;
+    }
+
+    // consume method consumes a token of the given type and returns its value, a register index
+    // for registers and the number for numbers.
+    private int consume(TokenType type, String message) {
+        if (scanner.type() != type || type == EOF)
+            throw error(message);
+        int value = scanner.value();
+        scanner.next();
+        return value;
+    }
+
+    private Parser.ParseError error(String message) {
+        reporter.error(scanner.token(), message);
+        return new Parser.ParseError();
+    }
+
+    // synchronize method skips the rest of the source like Parser does.
+    private void synchronize() {
+        while (scanner.type() != EOF) {
+            scanner.next();
+        }
+    }
+}
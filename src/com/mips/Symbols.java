@@ -0,0 +1,81 @@
+package com.mips;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Symbols holds the labels of a source and the branches and jumps that go to a label. Labels are
+// only looked up when a program is built or linked, the target of every instruction using one is
+// then patched with the index of the label, so nothing is looked up while the program runs.
+class Symbols {
+    // labels maps the name of every label to the index of the instruction after it.
+    private final Map<String, Integer> labels = new HashMap<>();
+    // defined holds the label tokens in the order they were defined, so the REPL can drop the ones
+    // of a bad line and the Linker can report a label defined in two files.
+    private final List<Token> defined = new ArrayList<>();
+    // the instructions using a label and the label tokens, for errors.
+    private int[] references = new int[16];
+    private final List<Token> names = new ArrayList<>();
+
+    // define method defines a label at the instruction index, a label can only be defined once.
+    void define(Token name, int index, Reporter reporter) {
+        if (labels.putIfAbsent(name.lexeme, index) != null) {
+            reporter.error(name, "Label is already defined.");
+            return;
+        }
+        defined.add(name);
+    }
+
+    // reference method records that the instruction at pc goes to a label, its target is patched later.
+    void reference(Token name, int pc) {
+        if (names.size() == references.length)
+            references = Arrays.copyOf(references, references.length * 2);
+        references[names.size()] = pc;
+        names.add(name);
+    }
+
+    // lookup method returns the index of a label, or -1 if it is not defined.
+    int lookup(String name) {
+        return labels.getOrDefault(name, -1);
+    }
+
+    // labels method returns the labels and their indices.
+    Map<String, Integer> labels() {
+        return labels;
+    }
+
+    // definitions method returns the label tokens in the order they were defined.
+    List<Token> definitions() {
+        return defined;
+    }
+
+    // count method returns the number of labels defined, rollback takes it back to this count.
+    int count() {
+        return defined.size();
+    }
+
+    // rollback method forgets the labels defined after the first count and the pending references.
+    void rollback(int count) {
+        while (defined.size() > count) {
+            labels.remove(defined.remove(defined.size() - 1).lexeme);
+        }
+        names.clear();
+    }
+
+    // resolve method patches the target of every instruction using a label, pc plus base is its
+    // index in code. The labels are looked up in labels, which maps them to indices in code too.
+    // The references are forgotten once they are resolved.
+    void resolve(int[] code, int base, Map<String, Integer> labels, Reporter reporter) {
+        for (int i = 0; i < names.size(); i++) {
+            Integer target = labels.get(names.get(i).lexeme);
+            if (target == null) {
+                reporter.error(names.get(i), "Undefined label.");
+                continue;
+            }
+            code[(references[i] + base) * Program.WIDTH + 3] = target;
+        }
+        names.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package com.mips;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// TokenBuffer stores scanned tokens in parallel primitive arrays instead of Token objects.
+// Token text is not copied, it is read back from the source bytes when an error needs it.
+class TokenBuffer implements TokenCursor {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final ByteBuffer source;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] values;
+    private int size = 0;
+    // position is the current token of the cursor, -1 before the first call to next.
+    private int position = -1;
+
+    TokenBuffer(ByteBuffer source, int capacity) {
+        this.source = source;
+        capacity = Math.max(capacity, 1);
+        types = new byte[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+        lines = new int[capacity];
+        values = new int[capacity];
+    }
+
+    // add method appends a token.
+    void add(TokenType type, int start, int length, int line, int value) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        values[size] = value;
+        size++;
+    }
+
+    // size method returns the number of tokens, EOF included.
+    int size() {
+        return size;
+    }
+
+    @Override
+    public TokenType next() {
+        if (position < size - 1)
+            position++;
+        return type();
+    }
+
+    @Override
+    public TokenType type() {
+        return TYPES[types[position]];
+    }
+
+    @Override
+    public int value() {
+        return values[position];
+    }
+
+    @Override
+    public int line() {
+        return lines[position];
+    }
+
+    @Override
+    public Token token() {
+        byte[] text = new byte[lengths[position]];
+        source.get(starts[position], text);
+        return new Token(type(), new String(text, StandardCharsets.US_ASCII), null, lines[position]);
+    }
+}
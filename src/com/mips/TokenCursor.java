@@ -0,0 +1,19 @@
+package com.mips;
+
+// TokenCursor walks over tokens one at a time without making a Token for each of them.
+interface TokenCursor {
+    // next method moves to the following token and returns its type, EOF stays at EOF.
+    TokenType next();
+
+    // type method returns the type of the current token.
+    TokenType type();
+
+    // value method returns the number of a NUMBER token or the register index of a REGISTER token.
+    int value();
+
+    // line method returns the line of the current token.
+    int line();
+
+    // token method builds a Token for the current token, it is only used to report errors.
+    Token token();
+}
@@ -0,0 +1,169 @@
+package com.mips;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Trace records every retired instruction of a run as a fixed-width record: the pc, the register
+// it wrote (-1 if none) and the new value of that register (0 if none). Records are written into
+// a small ring of preallocated chunks, a full chunk is handed to a writer thread which writes it
+// to the file while the run fills the next one, so tracing allocates nothing and never waits on
+// the disk unless the disk falls behind.
+//
+// A trace file holds, as big-endian ints: MAGIC, FORMAT_VERSION, the instruction count, the line
+// of every instruction, then the records until the end of the file. TraceReader decodes it.
+class Trace {
+    static final int MAGIC = 0x4D495054; // "MIPT"
+    static final int FORMAT_VERSION = 1;
+    // RECORD is the number of ints of a record.
+    static final int RECORD = 3;
+    private static final int CHUNK = RECORD * 64 * 1024;
+    private static final int CHUNKS = 4;
+    // END tells the writer thread to stop.
+    private static final int[] END = new int[0];
+
+    // destinations holds the register written by the instruction at every pc, or -1.
+    private final int[] destinations;
+    private final FileChannel channel;
+    private final BlockingQueue<int[]> free = new ArrayBlockingQueue<>(CHUNKS);
+    private final BlockingQueue<int[]> full = new ArrayBlockingQueue<>(CHUNKS + 1);
+    private final Thread writer;
+    // failure is the error of the writer thread, it is raised by close.
+    private volatile IOException failure;
+
+    private int[] chunk;
+    private int position = 0;
+    // the last record waits for its value until the next instruction starts, its instruction has run then.
+    private boolean pending = false;
+    private int pendingDestination;
+
+    private Trace(Program program, FileChannel channel) {
+        this.channel = channel;
+        this.destinations = new int[program.length];
+        for (int pc = 0; pc < program.length; pc++) {
+            destinations[pc] = destination(program, pc);
+        }
+        for (int i = 1; i < CHUNKS; i++) {
+            free.add(new int[CHUNK]);
+        }
+        chunk = new int[CHUNK];
+        writer = new Thread(this::write, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // open method creates the trace file of a run of program and writes its header.
+    static Trace open(Program program, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(12 + program.length * 4);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(program.length);
+        for (int pc = 0; pc < program.length; pc++) {
+            header.putInt(program.lines[pc]);
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        return new Trace(program, channel);
+    }
+
+    // step method is called before the instruction at pc runs, it gives the previous record its value.
+    void step(int pc, int[] registers) {
+        if (pending)
+            chunk[position - 1] = pendingDestination >= 0 ? registers[pendingDestination] : 0;
+        if (position == CHUNK)
+            handOff();
+        int destination = destinations[pc];
+        chunk[position] = pc;
+        chunk[position + 1] = destination;
+        position += RECORD;
+        pendingDestination = destination;
+        pending = true;
+    }
+
+    // finish method is called when a run stops. The last instruction is dropped if it did not retire
+    // because it raised an error.
+    void finish(int[] registers, boolean retired) {
+        if (!pending)
+            return;
+        if (retired)
+            chunk[position - 1] = pendingDestination >= 0 ? registers[pendingDestination] : 0;
+        else
+            position -= RECORD;
+        pending = false;
+    }
+
+    // close method writes the records left and waits for the writer thread to finish.
+    void close() throws IOException {
+        try {
+            if (position > 0)
+                full.put(Arrays.copyOf(chunk, position));
+            full.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the trace.", e);
+        } finally {
+            channel.close();
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    // handOff method gives the full chunk to the writer thread and takes an empty one.
+    private void handOff() {
+        try {
+            full.put(chunk);
+            chunk = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while tracing.", e);
+        }
+        position = 0;
+    }
+
+    // write method is the writer thread, it writes the chunks in the order they were filled.
+    private void write() {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(CHUNK * 4);
+        try {
+            for (;;) {
+                int[] records = full.take();
+                if (records == END)
+                    return;
+                if (failure == null) {
+                    bytes.clear();
+                    bytes.asIntBuffer().put(records);
+                    bytes.limit(records.length * 4);
+                    try {
+                        while (bytes.hasRemaining()) {
+                            channel.write(bytes);
+                        }
+                    } catch (IOException e) {
+                        // keep taking chunks so the run is not blocked, close reports the error.
+                        failure = e;
+                    }
+                }
+                if (records.length == CHUNK)
+                    free.put(records);
+            }
+        } catch (InterruptedException e) {
+            failure = new IOException("Interrupted while writing the trace.", e);
+        }
+    }
+
+    // destination method returns the register written by the instruction at pc, or -1.
+    // swap writes two registers, the trace holds the first one.
+    private static int destination(Program program, int pc) {
+        int opcode = program.opcode(pc);
+        if (opcode <= Opcode.SWAP && opcode != Opcode.SW || opcode == Opcode.LI || opcode == Opcode.MOVE
+                || opcode == Opcode.SHLI)
+            return program.code[pc * Program.WIDTH + 1];
+        return -1;
+    }
+}
@@ -0,0 +1,110 @@
+package com.mips;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// TraceReader decodes a trace file written with --trace, one retired instruction per line:
+//
+//     java -cp mips.jar com.mips.TraceReader trace [--line=n] [--register=name]
+//
+// The options keep the instructions of one source line or the ones writing one register.
+// The file is read in blocks, so traces larger than memory can be read.
+class TraceReader {
+    private static final int BLOCK = Trace.RECORD * 4 * 64 * 1024;
+
+    private final FileChannel channel;
+    private final int[] lines;
+
+    private TraceReader(FileChannel channel, int[] lines) {
+        this.channel = channel;
+        this.lines = lines;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = null;
+        int line = -1;
+        int register = -1;
+        for (String arg : args) {
+            if (arg.startsWith("--line=")) {
+                line = Integer.parseInt(arg.substring("--line=".length()));
+            } else if (arg.startsWith("--register=")) {
+                String name = arg.substring("--register=".length());
+                String lexeme = name.startsWith("$") ? name.substring(1) : name;
+                // index maps unknown names to $v0, so they are rejected here.
+                if (!Environment.valid(lexeme)) {
+                    System.out.println("Invalid register: " + name);
+                    usage();
+                }
+                register = Environment.index(lexeme);
+            } else if (path == null) {
+                path = Paths.get(arg);
+            } else {
+                usage();
+            }
+        }
+        if (path == null)
+            usage();
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 64 * 1024), false);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            open(channel).print(out, line, register);
+        }
+        out.flush();
+    }
+
+    // usage prints how to call the reader and exits.
+    private static void usage() {
+        System.out.println("Usage: TraceReader trace [--line=n] [--register=name]");
+        System.exit(64);
+    }
+
+    // open method reads the header of a trace file.
+    static TraceReader open(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(12);
+        read(channel, header);
+        if (header.getInt() != Trace.MAGIC || header.getInt() != Trace.FORMAT_VERSION)
+            throw new IOException("Not a trace of this version.");
+        int length = header.getInt();
+        ByteBuffer table = ByteBuffer.allocate(length * 4);
+        read(channel, table);
+        int[] lines = new int[length];
+        table.asIntBuffer().get(lines);
+        return new TraceReader(channel, lines);
+    }
+
+    // print method prints the records of the given line and register, -1 keeps them all.
+    void print(PrintStream out, int line, int register) throws IOException {
+        ByteBuffer block = ByteBuffer.allocateDirect(BLOCK);
+        while (channel.read(block) > 0 || block.position() > 0) {
+            block.flip();
+            while (block.remaining() >= Trace.RECORD * 4) {
+                int pc = block.getInt();
+                int destination = block.getInt();
+                int value = block.getInt();
+                if (line >= 0 && lines[pc] != line || register >= 0 && destination != register)
+                    continue;
+                if (destination >= 0)
+                    out.println((pc + 1) + " [line " + lines[pc] + "] $" + Environment.name(destination) + " = " + value);
+                else
+                    out.println((pc + 1) + " [line " + lines[pc] + "]");
+            }
+            if (block.hasRemaining() && channel.position() == channel.size())
+                throw new IOException("Truncated trace.");
+            block.compact();
+        }
+    }
+
+    // read method fills a buffer from the channel.
+    private static void read(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                throw new IOException("Not a trace of this version.");
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,151 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// AssemblerTest assembles programs into words, decodes them back and checks the program is the
+// same, and checks that words the Assembler does not make are rejected.
+class AssemblerTest {
+    // SOURCE has every instruction the scanner reads, immediates on both sides of the escape, and branches going
+    // backward and forward.
+    private static final String SOURCE = "add $t1, $t2, $t3 ;\n"
+            + "sub $t1, $t2, $t3 ;\n"
+            + "mul $t1, $t2, $t3 ;\n"
+            + "div $t1, $t2, $t3 ;\n"
+            + "and $s1, $s2, $s3 ;\n"
+            + "or $s1, $s2, $s3 ;\n"
+            + "addi $t1, $t1, 8191 ;\n"
+            + "addi $t1, $t1, 8192 ;\n"
+            + "subi $t1, $t1, -8191 ;\n"
+            + "subi $t1, $t1, -8192 ;\n"
+            + "muli $t1, $t1, 1000000 ;\n"
+            + "divi $t1, $t1, -1000000 ;\n"
+            + "andi $t1, $t1, 255 ;\n"
+            + "ori $t1, $t1, 0 ;\n"
+            + "sll $t1, $t1, 2 ;\n"
+            + "srl $t1, $t1, 2 ;\n"
+            + "lw $t1, $s1, 4 ;\n"
+            + "sw $t1, $s1, -4 ;\n"
+            + "swap $t1, $t2, 0 ;\n"
+            + "beq $t1, $t2, -20 ;\n"
+            + "bnq $t1, $t2, 5 ;\n"
+            + "bgt $t1, $t2, 0 ;\n"
+            + "bge $t1, $t2, -1 ;\n"
+            + "blt $t1, $t2, 2 ;\n"
+            + "ble $t1, $t2, 1 ;\n"
+            + "j 1 ;\n"
+            + "print $t1 ;\n";
+
+    @Test
+    void decodesWhatItAssembles() throws IOException {
+        Program program = compile(SOURCE);
+        Image image = Assembler.assemble(program);
+        assertEquals(program.length, image.words.length);
+        // 8192, -8192 and the two millions do not fit in 14 bits, 8191 and -8191 do.
+        assertArrayEquals(new int[] { 8192, -8192, 1000000, -1000000 }, image.pool);
+        assertSame(program, Assembler.decode(image));
+    }
+
+    // a branch offset that does not fit in 14 bits goes to the pool like an immediate.
+    @Test
+    void escapesLongBranches() throws IOException {
+        StringBuilder source = new StringBuilder("beq $t1, $t2, 9000 ;\n");
+        for (int i = 0; i < 9000; i++) {
+            source.append("addi $t1, $t1, 1 ;\n");
+        }
+        source.append("bnq $t1, $t2, -9002 ;\n");
+        Program program = compile(source.toString());
+        Image image = Assembler.assemble(program);
+        assertArrayEquals(new int[] { 9000, -9002 }, image.pool);
+        assertSame(program, Assembler.decode(image));
+    }
+
+    // the instructions MIPS32 has keep its op and funct numbers.
+    @Test
+    void keepsMipsNumbers() {
+        Image image = Assembler.assemble(compile(SOURCE));
+        assertEquals(0x00, image.words[0] >>> 26);
+        assertEquals(0x20, image.words[0] & 0x3F);
+        assertEquals(0x1C, image.words[2] >>> 26);
+        assertEquals(0x02, image.words[2] & 0x3F);
+        assertEquals(0x08, image.words[6] >>> 26);
+        assertEquals(0x23, image.words[16] >>> 26);
+        assertEquals(0x2B, image.words[17] >>> 26);
+        assertEquals(0x04, image.words[19] >>> 26);
+        assertEquals(0x05, image.words[20] >>> 26);
+        assertEquals(0x02 << 26, image.words[25]);
+    }
+
+    @Test
+    void readsWhatItWrites(@TempDir Path directory) throws IOException {
+        Program program = compile(SOURCE);
+        Path path = directory.resolve("program.bin");
+        Assembler.assemble(program).write(path);
+        Image image = Image.read(path);
+        assertSame(program, image.program());
+    }
+
+    @Test
+    void rejectsInvalidWords() {
+        int[] lines = { 1 };
+        // op 0x3F is not used, nor is funct 0x3F of SPECIAL and SPECIAL2.
+        assertInvalid(new Image(new int[] { 0x3F << 26 }, new int[0], lines));
+        assertInvalid(new Image(new int[] { 0x3F }, new int[0], lines));
+        assertInvalid(new Image(new int[] { 0x1C << 26 | 0x3F }, new int[0], lines));
+        // register 63 of an addi and of an add.
+        assertInvalid(new Image(new int[] { 0x08 << 26 | 63 << 14 }, new int[0], lines));
+        assertInvalid(new Image(new int[] { 63 << 8 | 0x20 }, new int[0], lines));
+    }
+
+    @Test
+    void rejectsTruncatedPool() {
+        int escaped = 0x08 << 26 | Assembler.ESCAPE & 0x3FFF;
+        IOException error = assertThrows(IOException.class,
+                () -> Assembler.decode(new Image(new int[] { escaped, escaped }, new int[] { 9000 }, new int[] { 1, 2 })));
+        assertEquals("Truncated constant pool at word 1.", error.getMessage());
+    }
+
+    // a counting loop the Optimizer fuses into an addi-branch instruction, which has no word.
+    @Test
+    void rejectsOptimizedPrograms() {
+        Program program = Optimizer.optimize(compile("addi $t1, $t1, 10 ;\n"
+                + "addi $s5, $s5, 1 ;\n"
+                + "bnq $t1, $s5, -2 ;\n"), true);
+        assertThrows(IllegalArgumentException.class, () -> Assembler.assemble(program));
+    }
+
+    private static void assertInvalid(Image image) {
+        IOException error = assertThrows(IOException.class, () -> Assembler.decode(image));
+        assertTrue(error.getMessage().startsWith("Invalid instruction word at 0"), error.getMessage());
+    }
+
+    private static void assertSame(Program expected, Program actual) {
+        assertEquals(expected.length, actual.length);
+        assertArrayEquals(Arrays.copyOf(expected.code, expected.length * Program.WIDTH),
+                Arrays.copyOf(actual.code, actual.length * Program.WIDTH));
+        assertArrayEquals(Arrays.copyOf(expected.lines, expected.length), Arrays.copyOf(actual.lines, actual.length));
+    }
+
+    private static Program compile(String source) {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Reporter reporter = new Reporter(new PrintStream(err, true, StandardCharsets.UTF_8));
+        ProgramBuilder builder = new ProgramBuilder(16);
+        new StreamParser(new ByteScanner(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), reporter), builder,
+                reporter).parse();
+        assertFalse(reporter.hadError, err.toString(StandardCharsets.UTF_8));
+        return builder.build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+// BranchPredictorTest feeds outcomes to the predictors and checks their predictions, and checks the
+// names BranchPredictor.of takes and the report of the BranchModel.
+class BranchPredictorTest {
+    @Test
+    void staticPredictsBackwardTaken() {
+        BranchPredictor predictor = BranchPredictor.of("static");
+        assertTrue(predictor.predict(5, 2));
+        assertTrue(predictor.predict(5, 5));
+        assertFalse(predictor.predict(5, 6));
+    }
+
+    @Test
+    void oneBitRepeatsTheLastOutcome() {
+        BranchPredictor predictor = new BranchPredictor.OneBit(4);
+        assertFalse(predictor.predict(3, 0));
+        predictor.update(3, true);
+        assertTrue(predictor.predict(3, 0));
+        predictor.update(3, false);
+        assertFalse(predictor.predict(3, 0));
+    }
+
+    // the counter stops at 3 and at 0, so one odd outcome after a run does not change the prediction.
+    @Test
+    void twoBitSaturates() {
+        BranchPredictor predictor = new BranchPredictor.TwoBit(4);
+        assertFalse(predictor.predict(3, 0));
+        predictor.update(3, true);
+        assertFalse(predictor.predict(3, 0));
+        predictor.update(3, true);
+        assertTrue(predictor.predict(3, 0));
+        for (int i = 0; i < 10; i++) {
+            predictor.update(3, true);
+        }
+        predictor.update(3, false);
+        assertTrue(predictor.predict(3, 0));
+        predictor.update(3, false);
+        assertFalse(predictor.predict(3, 0));
+        for (int i = 0; i < 10; i++) {
+            predictor.update(3, false);
+        }
+        predictor.update(3, true);
+        assertFalse(predictor.predict(3, 0));
+    }
+
+    // the table is indexed by the low bits of the pc, so pcs 16 apart share an entry.
+    @Test
+    void twoBitSharesEntries() {
+        BranchPredictor predictor = new BranchPredictor.TwoBit(4);
+        predictor.update(3, true);
+        predictor.update(19, true);
+        assertTrue(predictor.predict(3, 0));
+        assertFalse(predictor.predict(4, 0));
+    }
+
+    // gshare indexes its counters with the pc xor the last outcomes, keeping as many outcomes as it has bits.
+    @Test
+    void gshareIndexesWithHistory() {
+        BranchPredictor predictor = new BranchPredictor.Gshare(2);
+        // history 0, 1, 3 then 3 again: the third outcome is forgotten, the entries 1, 0, 2 and 2 are trained.
+        for (int i = 0; i < 4; i++) {
+            predictor.update(1, true);
+        }
+        assertTrue(predictor.predict(1, 0));
+        // with history 3: pc 2 uses entry 1, pc 3 entry 0, pc 0 entry 3, which were trained once or never.
+        assertFalse(predictor.predict(2, 0));
+        assertFalse(predictor.predict(3, 0));
+        assertFalse(predictor.predict(0, 0));
+        // two outcomes not taken empty the history, the first one took entry 2 back to 1.
+        predictor.update(1, false);
+        predictor.update(1, false);
+        assertFalse(predictor.predict(1, 0));
+        assertFalse(predictor.predict(2, 0));
+        // one more taken at pc 2 with history 0 brings entry 2 to 2, pc 3 with history 1 uses it.
+        predictor.update(2, true);
+        assertTrue(predictor.predict(3, 0));
+    }
+
+    @Test
+    void parsesNames() {
+        assertEquals("static", BranchPredictor.of("static").name());
+        assertEquals("1bit", BranchPredictor.of("1bit").name());
+        assertEquals("2bit", BranchPredictor.of("2bit").name());
+        assertEquals("gshare:" + BranchPredictor.Gshare.DEFAULT_BITS, BranchPredictor.of("gshare").name());
+        assertEquals("gshare:1", BranchPredictor.of("gshare:1").name());
+        assertEquals("gshare:24", BranchPredictor.of("gshare:24").name());
+        for (String name : new String[] { "gshare:0", "gshare:25", "gshare:", "gshare:x", "gshare:-3", "gshare:999" }) {
+            assertEquals("gshare takes 1 to 24 bits: " + name,
+                    assertThrows(IllegalArgumentException.class, () -> BranchPredictor.of(name)).getMessage());
+        }
+        assertEquals("Unknown branch predictor: perceptron",
+                assertThrows(IllegalArgumentException.class, () -> BranchPredictor.of("perceptron")).getMessage());
+    }
+
+    // the report numbers branches from 1 like the rest of the simulator.
+    @Test
+    void reportsBranchesFromOne() {
+        String source = "addi $t1, $t1, 4 ;\n"
+                + "loop: addi $s1, $s1, 1 ;\n"
+                + "bnq $t1, $s1, loop ;\n";
+        Reporter reporter = new Reporter(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        ProgramBuilder builder = new ProgramBuilder(16);
+        new StreamParser(new ByteScanner(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), reporter), builder,
+                reporter).parse();
+        Program program = builder.build();
+        BranchModel model = new BranchModel(program, List.of(BranchPredictor.of("static"), BranchPredictor.of("1bit")));
+        Interpreter interpreter = new Interpreter(new Output(new ByteArrayOutputStream()), reporter);
+        interpreter.setBranchModel(model);
+        interpreter.execute(program);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        model.report(new PrintStream(out, true, StandardCharsets.UTF_8));
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("branches: 4 conditional branches executed", lines.get(0));
+        // static is wrong on the exit only, 1bit on the first branch and the exit.
+        assertEquals(String.format("%-12s %14d %7.2f%%", "static", 1, 75.0), lines.get(2));
+        assertEquals(String.format("%-12s %14d %7.2f%%", "1bit", 2, 50.0), lines.get(3));
+        assertEquals(String.format("%8d %8d %-5s %14d %6.2f%% %8.2f%% %8.2f%%", 3, 3, "bnq", 4, 75.0, 75.0, 50.0),
+                lines.get(5));
+    }
+}
@@ -0,0 +1,105 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+// ControlFlowTest checks the targets verify accepts and rejects, and the blocks and edges of a small program.
+class ControlFlowTest {
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private final Reporter reporter = new Reporter(new PrintStream(err, true, StandardCharsets.UTF_8));
+
+    // every bad target is reported with its line, a branch that is never taken too.
+    @Test
+    void reportsInvalidTargets() {
+        Program program = decode("print $t1 ;\n"
+                + "j 9 ;\n"
+                + "beq $t1, $t1, -5 ;\n"
+                + "bnq $t1, $t1, 100 ;\n"
+                + "j 0 ;\n");
+        assertFalse(ControlFlow.verify(program, reporter));
+        assertEquals("[line 2] Error at 'j': Invalid jump address.\n"
+                + "[line 3] Error at 'beq': Invalid address.\n"
+                + "[line 4] Error at 'bnq': Invalid address.\n"
+                + "[line 5] Error at 'j': Invalid jump address.\n", errors());
+    }
+
+    // the end of the program is a valid target, one past it is not.
+    @Test
+    void acceptsTheEndOfTheProgram() {
+        assertTrue(ControlFlow.verify(decode("beq $t1, $t1, 1 ;\n"
+                + "j 3 ;\n"), reporter));
+        assertEquals("", errors());
+        assertFalse(ControlFlow.verify(decode("beq $t1, $t1, 2 ;\n"
+                + "print $t1 ;\n"), reporter));
+        assertEquals("[line 1] Error at 'beq': Invalid address.\n", errors());
+    }
+
+    // verify from start only checks the instructions from start on.
+    @Test
+    void checksFromStart() {
+        Program program = decode("j 9 ;\n"
+                + "print $t1 ;\n"
+                + "bnq $t1, $t2, -3 ;\n");
+        assertTrue(ControlFlow.verify(program, 1, reporter));
+        assertEquals("", errors());
+        assertFalse(ControlFlow.verify(program, 0, 1, reporter));
+        assertEquals("[line 1] Error at 'j': Invalid jump address.\n", errors());
+    }
+
+    @Test
+    void buildsBlocksOfALoop() {
+        ControlFlow flow = ControlFlow.of(decode("addi $t1, $t1, 3 ;\n"
+                + "loop: addi $s1, $s1, 1 ;\n"
+                + "bnq $t1, $s1, loop ;\n"
+                + "j 6 ;\n"
+                + "print $s1 ;\n"));
+        assertEquals(4, flow.count());
+        assertArrayEquals(new int[] { 0, 1, 3, 4 }, new int[] { flow.start(0), flow.start(1), flow.start(2), flow.start(3) });
+        assertArrayEquals(new int[] { 0, 2, 3, 4 }, new int[] { flow.end(0), flow.end(1), flow.end(2), flow.end(3) });
+        assertEquals(1, flow.blockOf(2));
+        assertEquals(4, flow.blockOf(5));
+        assertArrayEquals(new int[] { 1 }, flow.successors(0));
+        // the loop falls through to the next block or goes back to itself.
+        assertArrayEquals(new int[] { 2, 1 }, flow.successors(1));
+        // the jump goes to the exit, the print after it falls into it.
+        assertArrayEquals(new int[] { 4 }, flow.successors(2));
+        assertArrayEquals(new int[] { 4 }, flow.successors(3));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        flow.print(new PrintStream(out, true, StandardCharsets.UTF_8));
+        assertEquals("block 0: 1-1 (lines 1-1) -> 1\n"
+                + "block 1: 2-3 (lines 2-3) -> 2 1\n"
+                + "block 2: 4-4 (lines 4-4) -> exit\n"
+                + "block 3: 5-5 (lines 5-5) -> exit\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    // a branch to the next instruction has a single successor.
+    @Test
+    void mergesBranchToTheNextBlock() {
+        ControlFlow flow = ControlFlow.of(decode("beq $t1, $t2, 0 ;\n"
+                + "print $t1 ;\n"));
+        assertEquals(2, flow.count());
+        assertArrayEquals(new int[] { 1 }, flow.successors(0));
+    }
+
+    // decode method parses a source without checking its targets.
+    private Program decode(String source) {
+        Program program = new Decoder().decode(new Parser(new Scanner(source, reporter).scanTokens(), reporter).parse());
+        assertFalse(reporter.hadError, errors());
+        return program;
+    }
+
+    // errors method returns what was reported since the last call.
+    private String errors() {
+        String errors = err.toString(StandardCharsets.UTF_8);
+        err.reset();
+        return errors;
+    }
+}
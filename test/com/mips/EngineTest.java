@@ -0,0 +1,252 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// EngineTest runs random programs on the visitor, the switch engine and the tiered engine, with and
+// without the Optimizer, and checks that every run prints the same values and stops with the same
+// error as the visitor, which runs the instructions as they were written.
+class EngineTest {
+    private static final int PROGRAMS = 200;
+
+    // LOOP is a counting loop the Optimizer fuses into one addi-branch instruction.
+    private static final String LOOP = "addi $t1, $t1, 1000 ;\n"
+            + "addi $s1, $s1, 3 ;\n"
+            + "print $s1 ;\n"
+            + "addi $s5, $s5, 1 ;\n"
+            + "bnq $t1, $s5 , -4 ;\n";
+
+    @Test
+    void enginesAgree() {
+        for (int seed = 0; seed < PROGRAMS; seed++) {
+            String source = new Generator(new Random(seed)).program();
+            String expected = run(source, Engine.VISITOR, false);
+            for (Engine engine : new Engine[] { Engine.SWITCH, Engine.TIERED }) {
+                for (boolean optimize : new boolean[] { false, true }) {
+                    assertEquals(expected, run(source, engine, optimize),
+                            "seed " + seed + ", " + engine + (optimize ? " optimized" : "") + "\n" + source);
+                }
+            }
+        }
+    }
+
+    // a run stopped by a limit and resumed from its snapshot prints what one run prints, also when it
+    // stops on a fused instruction.
+    @Test
+    void resumesOptimizedRunFromSnapshot(@TempDir Path directory) throws IOException {
+        String expected = run(LOOP, Engine.SWITCH, false);
+        Path path = directory.resolve("loop.snap");
+        for (boolean tiered : new boolean[] { false, true }) {
+            for (long limit : new long[] { 1, 2, 1999, 2000, 2001, 2999, 3001 }) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                Reporter reporter = reporter(new ByteArrayOutputStream());
+                Program program = compile(LOOP, reporter);
+                Interpreter first = new Interpreter(new Output(out), reporter);
+                first.setLimits(new Limits(limit, 0, null));
+                first.execute(Optimizer.optimize(program, true), tiered);
+                Snapshot.write(first, program, path);
+
+                Interpreter second = new Interpreter(new Output(out), reporter);
+                Snapshot.read(path).restore(second, program);
+                second.resume(Optimizer.optimize(program, false), tiered);
+                assertEquals(expected, out.toString(StandardCharsets.UTF_8), "limit " + limit + (tiered ? ", tiered" : ""));
+            }
+        }
+    }
+
+    // run method runs a source and returns what it printed followed by its errors.
+    private static String run(String source, Engine engine, boolean optimize) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Reporter reporter = reporter(err);
+        Interpreter interpreter = new Interpreter(new Output(out), reporter);
+        if (engine == Engine.VISITOR) {
+            List<Inst> instructions = new Parser(new Scanner(source, reporter).scanTokens(), reporter).parse();
+            assertFalse(reporter.hadError, err.toString(StandardCharsets.UTF_8));
+            interpreter.interpret(instructions);
+        } else {
+            Program program = compile(source, reporter);
+            interpreter.execute(optimize ? Optimizer.optimize(program, true) : program, engine == Engine.TIERED);
+        }
+        return out.toString(StandardCharsets.UTF_8) + err.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Program compile(String source, Reporter reporter) {
+        ProgramBuilder builder = new ProgramBuilder(16);
+        ByteBuffer bytes = ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+        new StreamParser(new ByteScanner(bytes, reporter), builder, reporter).parse();
+        assertFalse(reporter.hadError);
+        return builder.build();
+    }
+
+    private static Reporter reporter(ByteArrayOutputStream err) {
+        return new Reporter(new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    // Generator writes random programs that always end: straight-line code, forward branches and
+    // jumps, counting loops nested two deep and the simple loops the LoopAccelerator runs in closed form.
+    // The loop counters are v and a registers, the code in the loops only writes t and s registers.
+    private static final class Generator {
+        private static final String[] RTYPES = { "add", "sub", "mul", "and", "or" };
+        private static final String[] ITYPES = { "addi", "subi", "muli", "andi", "ori", "sll" };
+
+        private final Random random;
+        private final List<String> lines = new ArrayList<>();
+
+        Generator(Random random) {
+            this.random = random;
+        }
+
+        String program() {
+            int blocks = 1 + random.nextInt(5);
+            for (int i = 0; i < blocks; i++) {
+                switch (random.nextInt(3)) {
+                    case 0:
+                        straight(1 + random.nextInt(8));
+                        break;
+                    case 1:
+                        loop(0, 1 + random.nextInt(2500));
+                        break;
+                    default:
+                        simpleLoop();
+                        break;
+                }
+            }
+            // a rare division by a register, which is zero unless the program set it.
+            if (random.nextInt(20) == 0)
+                emit("div " + any() + ", " + any() + ", " + any());
+            for (int i = 0; i < 4; i++) {
+                emit("print " + any());
+            }
+            return String.join("\n", lines) + "\n";
+        }
+
+        // straight method writes count instructions, some of them skip the ones after them.
+        private void straight(int count) {
+            for (int i = 0; i < count; i++) {
+                int kind = random.nextInt(10);
+                if (kind < 3) {
+                    emit(pick(RTYPES) + " " + work() + ", " + any() + ", " + any());
+                } else if (kind < 6) {
+                    emit(pick(ITYPES) + " " + work() + ", " + any() + ", " + immediate());
+                } else if (kind == 6) {
+                    String address = work();
+                    emit("andi " + address + ", " + any() + ", 1020");
+                    emit((random.nextBoolean() ? "sw " + any() : "lw " + work()) + ", " + address + ", " + random.nextInt(2) * 4);
+                } else if (kind == 7) {
+                    emit("print " + any());
+                } else if (kind == 8 && i + 1 < count) {
+                    skip(count - i - 1);
+                    return;
+                } else {
+                    emit((random.nextBoolean() ? "divi " : "srl ") + work() + ", " + any() + ", " + (1 + random.nextInt(5)));
+                }
+            }
+        }
+
+        // skip method writes a forward branch or jump over up to count instructions, then the instructions.
+        private void skip(int count) {
+            int at = lines.size();
+            emit("");
+            int skipped = 1 + random.nextInt(count);
+            straight(skipped);
+            int end = lines.size();
+            String branch = random.nextInt(3) == 0 ? "j " + (end + 1)
+                    : pick(new String[] { "beq", "bnq", "bgt", "bge", "blt", "ble" }) + " " + any() + ", " + any()
+                            + ", " + (end - at - 1);
+            lines.set(at, branch + " ;");
+            straight(count - skipped);
+        }
+
+        // loop method writes a loop that runs iterations times, with an inner loop when depth is 0.
+        private void loop(int depth, int iterations) {
+            String counter = "$v" + (depth * 2);
+            String limit = "$v" + (depth * 2 + 1);
+            emit("andi " + counter + ", " + counter + ", 0");
+            emit("andi " + limit + ", " + limit + ", 0");
+            emit("addi " + limit + ", " + limit + ", " + iterations);
+            int start = lines.size();
+            straight(random.nextInt(6));
+            if (depth == 0 && random.nextInt(3) == 0)
+                loop(1, 1 + random.nextInt(60));
+            straight(random.nextInt(3));
+            emit("addi " + counter + ", " + counter + ", 1");
+            int offset = start - lines.size() - 1;
+            switch (random.nextInt(4)) {
+                case 0:
+                    emit("bnq " + limit + ", " + counter + ", " + offset);
+                    break;
+                case 1:
+                    emit("blt " + limit + ", " + counter + ", " + offset);
+                    break;
+                case 2:
+                    emit("bgt " + counter + ", " + limit + ", " + offset);
+                    break;
+                default:
+                    emit("ble " + limit + ", " + counter + ", " + offset);
+                    break;
+            }
+        }
+
+        // simpleLoop method writes a loop that only steps a register and prints it.
+        private void simpleLoop() {
+            int step = 1 + random.nextInt(7);
+            boolean down = random.nextBoolean();
+            int from = random.nextInt(2001) - 1000;
+            int to = down ? from - random.nextInt(3000) : from + random.nextInt(3000);
+            emit("andi $a0, $a0, 0");
+            emit("addi $a0, $a0, " + from);
+            emit("andi $a1, $a1, 0");
+            emit("addi $a1, $a1, " + to);
+            int start = lines.size();
+            if (random.nextBoolean())
+                emit("print $a0");
+            emit("addi $a0, $a0, " + (down ? -step : step));
+            if (random.nextBoolean())
+                emit("print $a0");
+            int offset = start - lines.size() - 1;
+            // the counter compared to the limit: blt and ble keep going while it is below, bgt and bge while above.
+            String op = down ? (random.nextBoolean() ? "bgt" : "bge") : (random.nextBoolean() ? "blt" : "ble");
+            emit(op + " $a1, $a0, " + offset);
+        }
+
+        private void emit(String instruction) {
+            lines.add(instruction.isEmpty() ? instruction : instruction + " ;");
+        }
+
+        // work method returns a register the code may write.
+        private String work() {
+            return (random.nextBoolean() ? "$t" : "$s") + random.nextInt(10);
+        }
+
+        // any method returns any register, loop counters included.
+        private String any() {
+            int kind = random.nextInt(8);
+            return kind == 0 ? "$v" + random.nextInt(4) : kind == 1 ? "$a" + random.nextInt(2) : work();
+        }
+
+        private String immediate() {
+            if (random.nextInt(3) != 0)
+                return String.valueOf(random.nextInt(20) - 5);
+            // a large immediate, the scanner reads the minus sign apart so MIN_VALUE can not be written.
+            int value = random.nextInt(Integer.MAX_VALUE) >> random.nextInt(31);
+            return String.valueOf(random.nextBoolean() ? -value : value);
+        }
+
+        private String pick(String[] choices) {
+            return choices[random.nextInt(choices.length)];
+        }
+    }
+}
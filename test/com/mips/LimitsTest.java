@@ -0,0 +1,140 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+// LimitsTest stops runs with an instruction budget, a timeout and a cancellation, and checks that the
+// switch engine and the tiered one, whose loops are compiled or run in closed form, stop at the same
+// pc with the same registers, output and instruction count.
+class LimitsTest {
+    // SHORT retires 1 + 5 * 2 + 1 = 12 instructions, the limits are checked when bnq jumps back.
+    private static final String SHORT = "addi $t1, $t1, 5 ;\n"
+            + "addi $s5, $s5, 1 ;\n"
+            + "bnq $t1, $s5, -2 ;\n"
+            + "print $s5 ;\n";
+
+    // COMPILED runs its loop 5000 times, the tiered engine compiles it after Jit.THRESHOLD iterations.
+    private static final String COMPILED = "addi $t1, $t1, 5000 ;\n"
+            + "add $s1, $s1, $s5 ;\n"
+            + "addi $s5, $s5, 1 ;\n"
+            + "blt $t1, $s5, -3 ;\n"
+            + "print $s1 ;\n";
+
+    // COUNTED is a simple counting loop the tiered engine runs in closed form.
+    private static final String COUNTED = "addi $t1, $t1, 3000 ;\n"
+            + "addi $s5, $s5, 1 ;\n"
+            + "print $s5 ;\n"
+            + "bnq $t1, $s5, -3 ;\n"
+            + "print $t1 ;\n";
+
+    // a run stops at the backward branch where it went over the budget, with its line.
+    @Test
+    void stopsAtTheBranch() {
+        Run run = run(SHORT, false, false, new Limits(8, 0, null));
+        ExecutionLimitError error = (ExecutionLimitError) run.error;
+        assertEquals(2, error.pc());
+        assertEquals(3, error.line());
+        assertEquals("Instruction limit exceeded. Stopped at pc 2.\n[line 3]\n", run.err);
+        // the fourth jump back makes it 1 + 4 * 2 = 9 instructions.
+        assertEquals(9, run.retired);
+        assertEquals(4, run.registers[Environment.index("s5")]);
+    }
+
+    // a budget of exactly the instructions the program retires lets it end.
+    @Test
+    void endsOnTheExactBudget() {
+        Run run = run(SHORT, false, false, new Limits(12, 0, null));
+        assertNull(run.error);
+        assertEquals(12, run.retired);
+        assertEquals("5\n", run.out);
+        // the last check is at the fourth jump back, with 9 instructions retired.
+        assertNull(run(SHORT, false, false, new Limits(9, 0, null)).error);
+        assertEquals(ExecutionLimitError.class, run(SHORT, false, false, new Limits(8, 0, null)).error.getClass());
+    }
+
+    // compiled loops and loops run in closed form count their instructions like the switch engine.
+    @Test
+    void tieredStopsLikeSwitch() {
+        for (String source : new String[] { SHORT, COMPILED, COUNTED }) {
+            long total = run(source, false, false, new Limits(Long.MAX_VALUE, 0, null)).retired;
+            long[] budgets = { 1, 2, 3, 4, 5, 1000, 3001, 3002, 3003, 3004, 4321, 9000, 12000, 14999, 15000, 15001,
+                    total - 2, total - 1, total, total + 1 };
+            for (long budget : budgets) {
+                Run expected = run(source, false, false, new Limits(budget, 0, null));
+                for (boolean optimize : new boolean[] { false, true }) {
+                    Run actual = run(source, true, optimize, new Limits(budget, 0, null));
+                    String message = "budget " + budget + (optimize ? " optimized" : "") + "\n" + source;
+                    assertEquals(expected.err, actual.err, message);
+                    assertEquals(expected.out, actual.out, message);
+                    assertEquals(expected.pc, actual.pc, message);
+                    assertEquals(expected.retired, actual.retired, message);
+                    assertArrayEquals(expected.registers, actual.registers, message);
+                }
+            }
+        }
+    }
+
+    // a run that never ends is stopped by a cancellation from another thread, or by the clock.
+    @Test
+    void stopsEndlessLoops() throws InterruptedException {
+        String endless = "addi $t1, $t1, 1 ;\n"
+                + "j 1 ;\n";
+        for (boolean tiered : new boolean[] { false, true }) {
+            Cancellation cancellation = new Cancellation();
+            Run[] result = new Run[1];
+            Thread thread = new Thread(() -> result[0] = run(endless, tiered, false, new Limits(0, 0, cancellation)));
+            thread.start();
+            Thread.sleep(50);
+            cancellation.cancel();
+            thread.join(10_000);
+            assertFalse(thread.isAlive());
+            assertEquals("Execution cancelled. Stopped at pc 1.\n[line 2]\n", result[0].err);
+            assertTrue(result[0].registers[Environment.index("t1")] > 0);
+
+            Run timed = run(endless, tiered, false, new Limits(0, 50, null));
+            assertEquals("Time limit exceeded. Stopped at pc 1.\n[line 2]\n", timed.err);
+        }
+    }
+
+    private static final class Run {
+        final String out;
+        final String err;
+        final RuntimeError error;
+        final int pc;
+        final long retired;
+        final int[] registers;
+
+        Run(ByteArrayOutputStream out, ByteArrayOutputStream err, Interpreter interpreter) {
+            this.out = out.toString(StandardCharsets.UTF_8);
+            this.err = err.toString(StandardCharsets.UTF_8);
+            this.error = interpreter.error();
+            this.pc = interpreter.pc;
+            this.retired = interpreter.retired();
+            this.registers = interpreter.registers().clone();
+        }
+    }
+
+    private static Run run(String source, boolean tiered, boolean optimize, Limits limits) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Reporter reporter = new Reporter(new PrintStream(err, true, StandardCharsets.UTF_8));
+        ProgramBuilder builder = new ProgramBuilder(16);
+        new StreamParser(new ByteScanner(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), reporter), builder,
+                reporter).parse();
+        assertFalse(reporter.hadError);
+        Program program = builder.build();
+        Interpreter interpreter = new Interpreter(new Output(out), reporter);
+        interpreter.setLimits(limits);
+        interpreter.execute(optimize ? Optimizer.optimize(program, true) : program, tiered);
+        return new Run(out, err, interpreter);
+    }
+}
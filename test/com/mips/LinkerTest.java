@@ -0,0 +1,161 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// LinkerTest links small files and checks the targets of the program and the errors, and checks
+// that Parser and StreamParser make the same program of a source with labels.
+class LinkerTest {
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private final Reporter reporter = new Reporter(new PrintStream(err, true, StandardCharsets.UTF_8));
+
+    // a branch and a jump go to labels of the other file, in both directions.
+    @Test
+    void resolvesLabelsOfOtherFiles() throws IOException {
+        Program program = link(
+                "start: addi $t1, $t1, 1 ;\n"
+                        + "j done ;\n",
+                "beq $t1, $t2, start ;\n"
+                        + "done: print $t1 ;\n");
+        assertEquals("", errors());
+        assertEquals(4, program.length);
+        // j done goes to the second instruction of b.mips, which starts at 2.
+        assertEquals(Opcode.J, program.opcode(1));
+        assertEquals(3, target(program, 1));
+        assertEquals(Opcode.BEQ, program.opcode(2));
+        assertEquals(0, target(program, 2));
+    }
+
+    // numeric jump addresses count from the first instruction of their file, branch offsets from the next instruction.
+    @Test
+    void movesNumericTargetsByTheStartOfTheirFile() throws IOException {
+        Program program = link(
+                "addi $t1, $t1, 1 ;\n"
+                        + "j 2 ;\n"
+                        + "print $t1 ;\n",
+                "j 2 ;\n"
+                        + "bnq $t1, $t2, -2 ;\n"
+                        + "print $t1 ;\n");
+        assertEquals("", errors());
+        assertEquals(1, target(program, 1));
+        assertEquals(4, target(program, 3));
+        assertEquals(3, target(program, 4));
+        assertArrayEquals(new int[] { 1, 2, 3, 1, 2, 3 }, Arrays.copyOf(program.lines, program.length));
+    }
+
+    // a label defined in two files is reported in the second one, naming the file and the line.
+    @Test
+    void reportsLabelDefinedInAnotherFile() throws IOException {
+        link("loop: print $t1 ;\n",
+                "print $t2 ;\n"
+                        + "loop: print $t3 ;\n",
+                "loop: print $t4 ;\n");
+        assertEquals("[b.mips line 2] Error at 'loop': Label is already defined in another file.\n"
+                + "[c.mips line 1] Error at 'loop': Label is already defined in another file.\n", errors());
+    }
+
+    // undefined labels are reported in the order of the files, then of the lines.
+    @Test
+    void reportsUndefinedLabelsInOrder() throws IOException {
+        link("j nowhere ;\n"
+                        + "beq $t1, $t2, missing ;\n",
+                "here: j missing ;\n"
+                        + "j here ;\n");
+        assertEquals("[a.mips line 1] Error at 'nowhere': Undefined label.\n"
+                + "[a.mips line 2] Error at 'missing': Undefined label.\n"
+                + "[b.mips line 1] Error at 'missing': Undefined label.\n", errors());
+    }
+
+    // a target past the end of the program is reported in the file it is in, the end itself is a valid target.
+    @Test
+    void checksTargetsOfEveryFile() throws IOException {
+        // the program has 5 instructions, b.mips starts at 2.
+        link("j 6 ;\n"
+                        + "j 7 ;\n",
+                "print $t1 ;\n"
+                        + "beq $t1, $t1, 1 ;\n"
+                        + "beq $t1, $t1, 2 ;\n");
+        assertEquals("[a.mips line 2] Error at 'j': Invalid jump address.\n"
+                + "[b.mips line 3] Error at 'beq': Invalid address.\n", errors());
+    }
+
+    // Parser followed by the Decoder and StreamParser make the same program of a source with labels.
+    @Test
+    void parsersAgreeOnLabels() {
+        String source = "addi $t1, $t1, 3 ;\n"
+                + "loop:\n"
+                + "  print $t1 ;\n"
+                + "  subi $t1, $t1, 1 ;\n"
+                + "  bnq $t1, $t2, loop ;\n"
+                + "j end ;\n"
+                + "print $t1 ;\n"
+                + "end: again: print $t2 ;\n"
+                + "beq $t1, $t1, again ;\n";
+        List<Inst> instructions = new Parser(new Scanner(source, reporter).scanTokens(), reporter).parse();
+        assertFalse(reporter.hadError, errors());
+        Program parsed = new Decoder().decode(instructions);
+
+        ProgramBuilder builder = new ProgramBuilder(16);
+        new StreamParser(new ByteScanner(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), reporter), builder,
+                reporter).parse();
+        assertFalse(reporter.hadError, errors());
+        Program streamed = builder.build();
+
+        assertEquals(parsed.length, streamed.length);
+        assertArrayEquals(Arrays.copyOf(parsed.code, parsed.length * Program.WIDTH),
+                Arrays.copyOf(streamed.code, streamed.length * Program.WIDTH));
+        assertArrayEquals(Arrays.copyOf(parsed.lines, parsed.length), Arrays.copyOf(streamed.lines, streamed.length));
+        assertEquals(1, target(streamed, 3));
+        assertEquals(6, target(streamed, 4));
+        assertEquals(6, target(streamed, 7));
+    }
+
+    // Parser reports undefined labels and labels defined twice like StreamParser.
+    @Test
+    void parsersAgreeOnLabelErrors() {
+        String source = "a: print $t1 ;\n"
+                + "a: print $t1 ;\n";
+        new Parser(new Scanner(source, reporter).scanTokens(), reporter).parse();
+        assertEquals("[line 2] Error at 'a': Label is already defined.\n", errors());
+
+        err.reset();
+        reporter.reset();
+        new Parser(new Scanner("j b ;\n", reporter).scanTokens(), reporter).parse();
+        assertEquals("[line 1] Error at 'b': Undefined label.\n", errors());
+    }
+
+    private Program link(String... sources) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++) {
+            Path file = directory.resolve((char) ('a' + i) + ".mips");
+            Files.writeString(file, sources[i]);
+            files.add(file);
+        }
+        return Linker.link(files, reporter);
+    }
+
+    private String errors() {
+        return err.toString(StandardCharsets.UTF_8);
+    }
+
+    private static int target(Program program, int pc) {
+        return program.code[pc * Program.WIDTH + 3];
+    }
+}
@@ -0,0 +1,146 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+// ParallelParserTest parses random sources in one piece with the StreamParser and in many pieces
+// with the ParallelParser, and checks they make the same program and report the same errors. The
+// sources have labels, scanner errors, syntax errors and labels defined twice, anywhere in the source.
+class ParallelParserTest {
+    private static final int SOURCES = 300;
+    private static final int[] PIECES = { 2, 3, 5, 8, 50 };
+
+    @Test
+    void piecesParseLikeOneSource() throws IOException {
+        for (int seed = 0; seed < SOURCES; seed++) {
+            String source = source(new Random(seed));
+            Result expected = sequential(source);
+            for (int pieces : PIECES) {
+                Result actual = parallel(source, pieces);
+                String message = "seed " + seed + ", " + pieces + " pieces\n" + source;
+                assertEquals(expected.errors, actual.errors, message);
+                if (expected.errors.isEmpty()) {
+                    assertArrayEquals(expected.code, actual.code, message);
+                    assertArrayEquals(expected.lines, actual.lines, message);
+                }
+            }
+        }
+    }
+
+    // a scanner error after a syntax error, and a syntax error after a scanner error, are both reported.
+    @Test
+    void reportsScannerErrorsAfterSyntaxErrors() throws IOException {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            source.append(i == 10 ? "addi $t1 $t1, 1 ;\n" : i == 190 ? "addi $t1, $t1, @1 ;\n" : "addi $t1, $t1, 1 ;\n");
+        }
+        assertEquals(sequential(source.toString()).errors, parallel(source.toString(), 8).errors);
+        assertEquals(2, parallel(source.toString(), 8).errors.lines().count());
+
+        source.setLength(0);
+        for (int i = 0; i < 200; i++) {
+            source.append(i == 10 ? "addi $t1, $t1, 1 # ;\n" : i == 190 ? "addi $t1, $t1 1 ;\n" : "addi $t1, $t1, 1 ;\n");
+        }
+        assertEquals(sequential(source.toString()).errors, parallel(source.toString(), 8).errors);
+        assertEquals(2, parallel(source.toString(), 8).errors.lines().count());
+    }
+
+    private static final class Result {
+        final int[] code;
+        final int[] lines;
+        final String errors;
+
+        Result(Program program, ByteArrayOutputStream errors) {
+            this.code = Arrays.copyOf(program.code, program.length * Program.WIDTH);
+            this.lines = Arrays.copyOf(program.lines, program.length);
+            this.errors = errors.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Result sequential(String source) {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Reporter reporter = new Reporter(new PrintStream(err, true, StandardCharsets.UTF_8));
+        ProgramBuilder builder = new ProgramBuilder(16);
+        new StreamParser(new ByteScanner(bytes(source), reporter), builder, reporter).parse();
+        return new Result(builder.build(), err);
+    }
+
+    private static Result parallel(String source, int pieces) throws IOException {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Reporter reporter = new Reporter(new PrintStream(err, true, StandardCharsets.UTF_8));
+        return new Result(ParallelParser.parse(bytes(source), reporter, pieces), err);
+    }
+
+    private static ByteBuffer bytes(String source) {
+        return ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // source method writes a program of valid instructions and labels, with a few errors in some of them.
+    private static String source(Random random) {
+        int count = 20 + random.nextInt(200);
+        int labels = random.nextInt(6);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String line;
+            switch (random.nextInt(6)) {
+                case 0:
+                    line = "add $t" + random.nextInt(10) + ", $s" + random.nextInt(10) + ", $a" + random.nextInt(10) + " ;";
+                    break;
+                case 1:
+                    line = "beq $t1, $t2, " + (random.nextInt(2 * count) - count) + " ;";
+                    break;
+                case 2:
+                    line = labels > 0 ? "bnq $t1, $t2, l" + random.nextInt(labels) + " ;" : "print $t3 ;";
+                    break;
+                case 3:
+                    line = "j " + (1 + random.nextInt(count)) + " ;";
+                    break;
+                case 4:
+                    line = labels > 0 ? "l" + random.nextInt(labels) + ":" : "sw $t1, $s1, 4 ;";
+                    break;
+                default:
+                    line = "addi $t" + random.nextInt(10) + ", $t0, " + random.nextInt(1000) + " ;";
+                    break;
+            }
+            lines.add(line);
+        }
+        int errors = random.nextInt(4);
+        for (int i = 0; i < errors; i++) {
+            int at = random.nextInt(count);
+            lines.set(at, error(random, lines.get(at)));
+        }
+        return String.join(random.nextBoolean() ? "\n" : "\n\n", lines) + "\n";
+    }
+
+    // error method breaks a line: a character the scanner does not know, a bad register or number,
+    // a missing comma or semicolon, or a label no instruction defines.
+    private static String error(Random random, String line) {
+        switch (random.nextInt(7)) {
+            case 0:
+                return line.replaceFirst(" ", " @");
+            case 1:
+                return line.replaceFirst("\\$t", "\\$x");
+            case 2:
+                return line.replace(";", "1.5 ;");
+            case 3:
+                return line.replaceFirst(",", "");
+            case 4:
+                return line.replace(";", "");
+            case 5:
+                return "bnq $t1, $t2, missing ;";
+            default:
+                return "# " + line;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+// PipelineTest times short runs on the pipeline model and checks the cycles and the stalls of
+// every cause exactly. The first instruction is in EX at cycle 3 and its WB is at cycle 5.
+class PipelineTest {
+    @Test
+    void forwardsAluResults() {
+        String source = "addi $t1, $t1, 1 ;\n"
+                + "add $t2, $t1, $t1 ;\n";
+        assertTiming(source, true, 2, 6, 0, 0, 0, 0);
+        // without forwarding add waits for the WB of addi, two cycles later.
+        assertTiming(source, false, 2, 8, 2, 0, 0, 0);
+    }
+
+    @Test
+    void stallsOnLoadUse() {
+        String source = "lw $t1, $t0, 0 ;\n"
+                + "add $t2, $t1, $t1 ;\n";
+        assertTiming(source, true, 2, 7, 0, 1, 0, 0);
+        assertTiming(source, false, 2, 8, 0, 2, 0, 0);
+    }
+
+    // a taken branch flushes two instructions, also when it goes to the next one, a branch not taken none.
+    @Test
+    void flushesTakenBranches() {
+        assertTiming("beq $t0, $t0, 0 ;\nprint $t0 ;\n", true, 2, 8, 0, 0, 2, 0);
+        assertTiming("bnq $t0, $t0, 0 ;\nprint $t0 ;\n", true, 2, 6, 0, 0, 0, 0);
+        // a branch taken to the end of the program is charged too.
+        assertTiming("addi $t1, $t1, 1 ;\nbeq $t0, $t0, 0 ;\n", true, 2, 8, 0, 0, 2, 0);
+    }
+
+    @Test
+    void flushesAfterJumps() {
+        assertTiming("j 2 ;\nprint $t0 ;\n", true, 2, 7, 0, 0, 0, 1);
+        assertTiming("print $t0 ;\nj 3 ;\n", true, 2, 7, 0, 0, 0, 1);
+    }
+
+    // the loop branch is taken twice then falls through, the print reads $s1 two cycles after addi.
+    @Test
+    void timesALoop() {
+        assertTiming("addi $t1, $t1, 3 ;\n"
+                + "loop: addi $s1, $s1, 1 ;\n"
+                + "bnq $t1, $s1, loop ;\n"
+                + "print $s1 ;\n", true, 8, 16, 0, 0, 4, 0);
+    }
+
+    private static void assertTiming(String source, boolean forwarding, long instructions, long cycles, long data,
+            long load, long branch, long jump) {
+        Reporter reporter = new Reporter(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        ProgramBuilder builder = new ProgramBuilder(16);
+        new StreamParser(new ByteScanner(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), reporter), builder,
+                reporter).parse();
+        assertFalse(reporter.hadError);
+        Program program = builder.build();
+        Pipeline pipeline = new Pipeline(program, forwarding);
+        Interpreter interpreter = new Interpreter(new Output(new ByteArrayOutputStream()), reporter);
+        interpreter.setPipeline(pipeline);
+        interpreter.execute(program);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pipeline.report(new PrintStream(out, true, StandardCharsets.UTF_8));
+        Map<String, Long> counts = counts(out.toString(StandardCharsets.UTF_8));
+        String message = (forwarding ? "" : "no forwarding\n") + source;
+        assertEquals(cycles, pipeline.cycles(), message);
+        assertEquals(instructions, counts.get("instructions"), message);
+        assertEquals(cycles, counts.get("cycles"), message);
+        assertEquals(data, counts.get("data"), message);
+        assertEquals(load, counts.get("load-use"), message);
+        assertEquals(branch, counts.get("branch"), message);
+        assertEquals(jump, counts.get("jump"), message);
+    }
+
+    // counts method reads the report lines starting with a name and a count.
+    private static Map<String, Long> counts(String report) {
+        Map<String, Long> counts = new HashMap<>();
+        for (String line : report.lines().toList()) {
+            String[] words = line.trim().split("\\s+");
+            if (words.length >= 2 && words[1].matches("\\d+"))
+                counts.put(words[0], Long.parseLong(words[1]));
+        }
+        return counts;
+    }
+}
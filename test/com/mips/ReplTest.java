@@ -0,0 +1,92 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+// ReplTest types lines into a session, on the switch engine and the tiered one, and checks what is
+// printed and reported.
+class ReplTest {
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    void keepsRegistersFromLineToLine() {
+        for (boolean tiered : new boolean[] { false, true }) {
+            Repl repl = repl(tiered);
+            assertTrue(repl.line("addi $t1, $t1, 5 ;"));
+            assertTrue(repl.line("addi $t1, $t1, 2 ;"));
+            assertTrue(repl.line("print $t1 ;"));
+            assertEquals("7\n", take(out));
+            assertEquals("", take(err));
+        }
+    }
+
+    // a branch goes back to a label or an offset of an earlier line, which runs again.
+    @Test
+    void branchesBackToEarlierLines() {
+        for (boolean tiered : new boolean[] { false, true }) {
+            Repl repl = repl(tiered);
+            assertTrue(repl.line("addi $t1, $t1, 3 ;"));
+            assertTrue(repl.line("loop: addi $s1, $s1, 1 ;"));
+            assertTrue(repl.line("bnq $t1, $s1, loop ;"));
+            assertTrue(repl.line("print $s1 ;"));
+            assertEquals("3\n", take(out));
+            // back to print $s1 with an offset, until $s2 reaches $t1.
+            assertTrue(repl.line("addi $s2, $s2, 1 ; bnq $s2, $t1, -3 ;"));
+            assertEquals("3\n3\n", take(out));
+            assertEquals("", take(err));
+        }
+    }
+
+    // a line with an error is reported with its line in the session and dropped with its labels.
+    @Test
+    void dropsLinesWithErrors() {
+        for (boolean tiered : new boolean[] { false, true }) {
+            Repl repl = repl(tiered);
+            assertTrue(repl.line("addi $t1, $t1, 1 ;"));
+            assertFalse(repl.line("here: addi $t1, $t1, 1 ; addi $t1 $t1, 1 ;"));
+            assertEquals("[line 2] Error at 't1': Expect comma.\n", take(err));
+            assertFalse(repl.line("j here ;"));
+            assertEquals("[line 3] Error at 'here': Undefined label.\n", take(err));
+            // the label can be defined again, and the dropped addi never ran.
+            assertTrue(repl.line("here: print $t1 ;"));
+            assertEquals("1\n", take(out));
+            // a branch back by one reaches the last good line, not a dropped one.
+            assertTrue(repl.line("addi $s1, $s1, 1 ; beq $s1, $t1, -3 ;"));
+            assertEquals("1\n", take(out));
+            assertEquals("", take(err));
+        }
+    }
+
+    // a runtime error is reported and the session goes on with the registers it had.
+    @Test
+    void continuesAfterRuntimeErrors() {
+        for (boolean tiered : new boolean[] { false, true }) {
+            Repl repl = repl(tiered);
+            assertTrue(repl.line("addi $t1, $t1, 4 ;"));
+            assertTrue(repl.line("divi $t2, $t1, 0 ;"));
+            assertEquals("Division by zero.\n[line 2]\n", take(err));
+            assertTrue(repl.line("print $t1 ;"));
+            assertEquals("4\n", take(out));
+            assertEquals("", take(err));
+        }
+    }
+
+    private Repl repl(boolean tiered) {
+        Reporter reporter = new Reporter(new PrintStream(err, true, StandardCharsets.UTF_8));
+        return new Repl(new Interpreter(new Output(out), reporter), reporter, tiered);
+    }
+
+    // take method returns what was written to a stream since the last take.
+    private static String take(ByteArrayOutputStream stream) {
+        String text = stream.toString(StandardCharsets.UTF_8);
+        stream.reset();
+        return text;
+    }
+}
@@ -0,0 +1,141 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+// SimulatorTest uses the embedding API as another program would: compile errors, sessions run,
+// reset and run again, sessions of one program on many threads and the errors thrown by a run.
+class SimulatorTest {
+    // COUNT counts $s1 up to 100000 and prints it.
+    private static final String COUNT = "addi $t1, $t1, 100000 ;\n"
+            + "loop: addi $s1, $s1, 1 ;\n"
+            + "bnq $t1, $s1, loop ;\n"
+            + "print $s1 ;\n";
+
+    @Test
+    void reportsCompileErrors() {
+        CompileException error = assertThrows(CompileException.class,
+                () -> Simulator.compile("addi $t1 $t1, 1 ;\nprint $t1 ;\nadd $t1, $x1, $t2 ;\n"));
+        assertEquals(List.of("[line 1] Error at 't1': Expect comma.", "[line 3] Error: Invalid register."), error.errors());
+        assertEquals("[line 1] Error at 't1': Expect comma.\n[line 3] Error: Invalid register.", error.getMessage());
+
+        assertEquals(List.of("[line 1] Error at 'nowhere': Undefined label."),
+                assertThrows(CompileException.class, () -> Simulator.compile("j nowhere ;\n")).errors());
+        assertEquals(List.of("[line 2] Error at 'j': Invalid jump address."),
+                assertThrows(CompileException.class, () -> Simulator.compile("print $t1 ;\nj 9 ;\n")).errors());
+    }
+
+    // a session run again after reset starts from zeroed registers, without reset it goes on from them.
+    @Test
+    void resetsBetweenRuns() throws CompileException {
+        Program program = Simulator.compile("addi $s1, $s1, 7 ;\nprint $s1 ;\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Session session = new Session(program, out);
+        session.run();
+        session.reset();
+        session.run();
+        assertEquals("7\n7\n", out.toString(StandardCharsets.UTF_8));
+        session.run();
+        assertEquals("7\n7\n14\n", out.toString(StandardCharsets.UTF_8));
+        session.reset();
+        assertEquals(0, session.register("$s1"));
+    }
+
+    // reset keeps the memory, only the registers go back to 0.
+    @Test
+    void keepsMemoryOnReset() throws CompileException {
+        Program program = Simulator.compile("lw $t1, $t0, 8 ;\naddi $t1, $t1, 1 ;\nsw $t1, $t0, 8 ;\n");
+        Session session = new Session(program, new ByteArrayOutputStream());
+        session.setMemory(new Memory(64));
+        session.run();
+        session.reset();
+        session.run();
+        assertEquals(2, session.memory().load(8));
+        assertEquals(2, session.register("t1"));
+    }
+
+    // sessions of one program running at the same time keep their registers and output apart.
+    @Test
+    void runsSessionsOnManyThreads() throws Exception {
+        Program program = Simulator.compile(COUNT);
+        int threads = 4;
+        ByteArrayOutputStream[] outs = new ByteArrayOutputStream[threads];
+        Session[] sessions = new Session[threads];
+        Throwable[] failures = new Throwable[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            outs[t] = new ByteArrayOutputStream();
+            sessions[t] = new Session(program, outs[t]);
+            sessions[t].setTiered(t % 2 == 0);
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int run = 0; run < 5; run++) {
+                        sessions[index].reset();
+                        sessions[index].run();
+                    }
+                } catch (Throwable e) {
+                    failures[index] = e;
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (int t = 0; t < threads; t++) {
+            workers[t].join(30_000);
+            assertFalse(workers[t].isAlive());
+            assertEquals(null, failures[t]);
+            assertEquals("100000\n".repeat(5), outs[t].toString(StandardCharsets.UTF_8));
+            assertEquals(100000, sessions[t].register("s1"));
+        }
+    }
+
+    // runtime errors are thrown to the caller with their line, after what was printed before them.
+    @Test
+    void throwsRuntimeErrors() throws CompileException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Session session = new Session(Simulator.compile("print $t1 ;\ndivi $t1, $t1, 0 ;\n"), out);
+        RuntimeError error = assertThrows(RuntimeError.class, session::run);
+        assertEquals("Division by zero.", error.getMessage());
+        assertEquals(2, error.line());
+        assertEquals("0\n", out.toString(StandardCharsets.UTF_8));
+
+        Session memory = new Session(Simulator.compile("lw $t1, $t0, 6 ;\n"), new ByteArrayOutputStream());
+        assertEquals("Unaligned address 6.", assertThrows(RuntimeError.class, memory::run).getMessage());
+
+        Session endless = new Session(Simulator.compile("j 1 ;\n"), new ByteArrayOutputStream());
+        endless.setLimits(new Limits(100, 0, null));
+        ExecutionLimitError limit = assertThrows(ExecutionLimitError.class, endless::run);
+        assertEquals(0, limit.pc());
+        assertEquals(1, limit.line());
+    }
+
+    @Test
+    void checksRegisterNames() throws CompileException {
+        Session session = new Session(Simulator.compile("print $t1 ;\n"), new ByteArrayOutputStream());
+        assertEquals("Invalid register: $x1", assertThrows(IllegalArgumentException.class,
+                () -> session.register("$x1")).getMessage());
+    }
+
+    // the public load and store check the address like lw and sw.
+    @Test
+    void checksMemoryAddresses() {
+        Memory memory = new Memory(16);
+        memory.store(12, 5);
+        assertEquals(5, memory.load(12));
+        assertEquals("Unaligned address 2.", assertThrows(IllegalArgumentException.class, () -> memory.load(2)).getMessage());
+        assertEquals("Address 16 is out of memory.",
+                assertThrows(IllegalArgumentException.class, () -> memory.store(16, 1)).getMessage());
+        assertEquals("Address -4 is out of memory.",
+                assertThrows(IllegalArgumentException.class, () -> memory.load(-4)).getMessage());
+    }
+}
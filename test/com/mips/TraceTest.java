@@ -0,0 +1,93 @@
+package com.mips;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// TraceTest records runs into trace files and decodes them with the TraceReader.
+class TraceTest {
+    @TempDir
+    Path directory;
+
+    // every retired instruction is a record, swap records the first register it writes.
+    @Test
+    void decodesWhatWasRecorded() throws IOException {
+        Path path = record("addi $t1, $t1, 5 ;\n"
+                + "addi $t2, $t2, 7 ;\n"
+                + "swap $t1, $t2, 0 ;\n"
+                + "sw $t1, $t0, 4 ;\n"
+                + "print $t2 ;\n");
+        assertEquals("1 [line 1] $t1 = 5\n"
+                + "2 [line 2] $t2 = 7\n"
+                + "3 [line 3] $t1 = 7\n"
+                + "4 [line 4]\n"
+                + "5 [line 5]\n", read(path, -1, -1));
+        assertEquals("1 [line 1] $t1 = 5\n"
+                + "3 [line 3] $t1 = 7\n", read(path, -1, Environment.index("t1")));
+        assertEquals("2 [line 2] $t2 = 7\n", read(path, 2, -1));
+    }
+
+    // the instruction that raised a runtime error did not retire, it has no record.
+    @Test
+    void dropsTheInstructionThatFailed() throws IOException {
+        Path path = record("addi $t1, $t1, 1 ;\n"
+                + "divi $t2, $t1, 0 ;\n"
+                + "print $t1 ;\n");
+        assertEquals("1 [line 1] $t1 = 1\n", read(path, -1, -1));
+    }
+
+    // a run longer than a chunk of the writer and a block of the reader keeps every record in order.
+    @Test
+    void readsTracesOfManyChunks() throws IOException {
+        int iterations = 100_000;
+        Path path = record("addi $t1, $t1, " + iterations + " ;\n"
+                + "addi $s1, $s1, 1 ;\n"
+                + "bnq $t1, $s1, -2 ;\n");
+        List<String> records = read(path, -1, -1).lines().toList();
+        assertEquals(1 + 2 * iterations, records.size());
+        assertEquals("1 [line 1] $t1 = 100000", records.get(0));
+        for (int k = 1; k <= iterations; k++) {
+            assertEquals("2 [line 2] $s1 = " + k, records.get(2 * k - 1));
+            assertEquals("3 [line 3]", records.get(2 * k));
+        }
+        assertEquals(iterations, read(path, 2, -1).lines().count());
+    }
+
+    // record method runs a source with tracing on and returns the trace file.
+    private Path record(String source) throws IOException {
+        Reporter reporter = new Reporter(new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8));
+        ProgramBuilder builder = new ProgramBuilder(16);
+        new StreamParser(new ByteScanner(ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)), reporter), builder,
+                reporter).parse();
+        assertFalse(reporter.hadError);
+        Program program = builder.build();
+        Path path = directory.resolve("run.trace");
+        Trace trace = Trace.open(program, path);
+        Interpreter interpreter = new Interpreter(new Output(new ByteArrayOutputStream()), reporter);
+        interpreter.setTrace(trace);
+        interpreter.execute(program);
+        trace.close();
+        return path;
+    }
+
+    private static String read(Path path, int line, int register) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            PrintStream print = new PrintStream(out, false, StandardCharsets.UTF_8);
+            TraceReader.open(channel).print(print, line, register);
+            print.flush();
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}